@@ -0,0 +1,296 @@
+import java.util.*;
+import java.io.*;
+import java.awt.geom.Point2D;
+
+/**
+ * BenchWorld class.
+ *
+ * Implementation of bench.World for the JMH benchmarks. Lives in the default package so it can use the game
+ * classes directly.
+ *
+ * A world is a fully known map (as if the whole map had been explored) with the player at (0,0) facing up.
+ * Everything a benchmark needs is prepared once on construction:
+ *   - a far away goal, the reachable tile with the longest path from the player (AStar, also bidirectional,
+ *     JumpPointSearch, FloodFill)
+ *   - a partially explored copy of the map where only tiles near the player are known (SpiralSeek, FrontierSearch)
+ *   - two different views of the tiles around the player (State.updateFromView)
+ *   - a crossing goal, the furthest tile that can only be reached by placing stepping stones (CrossingPlanner)
+ *
+ * The player holds the key and the axe so doors and trees never split the map.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class BenchWorld implements bench.World {
+  //Tiles further than this from the player are unknown in the partially explored map
+  private static final int EXPLORED_RADIUS = 8;
+  //Crossing goal candidates tried when preparing the world, furthest first
+  private static final int MAX_CROSSING_CANDIDATES = 200;
+
+  private static final boolean HAS_KEY = true;
+  private static final boolean HAS_AXE = true;
+
+  private final TileGrid map;
+  private final TileGrid exploredMap;
+  private final int stonesHeld;
+
+  private final Point2D.Double start;
+  private Point2D.Double goal;
+  private Point2D.Double crossingGoal;
+
+  private final AStar aStar;
+  private final AStar bidirectionalAStar;
+  private final JumpPointSearch jumpPointSearch;
+  private final FloodFill floodFill;
+  private final FrontierSearch frontierSearch;
+  private final CrossingPlanner crossingPlanner;
+  private final State state;
+  private final char[][][] views;
+  private int nextView;
+
+  private final List<Point2D.Double> noInterestPoints;
+
+  /**
+   * Constructor.
+   *
+   * @param map the fully known map, the player must be at (0,0)
+   * @param stonesHeld stepping stones available when planning crossings
+   */
+  private BenchWorld(TileGrid map, int stonesHeld) {
+    this.map = map;
+    this.stonesHeld = stonesHeld;
+    this.start = new Point2D.Double(0, 0);
+    this.noInterestPoints = Collections.emptyList();
+
+    this.aStar = new AStar(map);
+    this.bidirectionalAStar = new AStar(map, true);
+    this.jumpPointSearch = new JumpPointSearch(map);
+    this.floodFill = new FloodFill(map);
+    this.crossingPlanner = new CrossingPlanner(map);
+
+    //Only the tiles around the player are known
+    this.exploredMap = new TileGrid(State.OBSTACLE_UNKNOWN);
+    this.exploredMap.copyFrom(map);
+    for (int p = 0; p < TileGrid.SIZE; ++p) {
+      if (Math.abs(Coord.x(p)) + Math.abs(Coord.y(p)) > EXPLORED_RADIUS)
+        this.exploredMap.set(p, State.OBSTACLE_UNKNOWN);
+    }
+    this.frontierSearch = new FrontierSearch(this.exploredMap);
+
+    //The view from the start and the view from the tile in front, alternating them changes the map every call
+    this.state = new State();
+    this.views = new char[][][] { getView(0, 0), getView(0, 1) };
+    this.nextView = 0;
+
+    chooseGoals();
+  }
+
+  /**
+   * Loads a map in the format read by Stepping.
+   *
+   * @param path path of the map file
+   * @param stonesHeld stepping stones available when planning crossings
+   * @return the prepared world
+   */
+  public static BenchWorld fromFile(String path, int stonesHeld) {
+    List<String> rows = new ArrayList<>();
+
+    try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+      String line;
+      while ((line = in.readLine()) != null)
+        rows.add(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read map: " + path, e);
+    }
+
+    //Find the player
+    int startRow = -1, startCol = -1;
+    for (int r = 0; r < rows.size() && startRow < 0; ++r) {
+      String row = rows.get(r);
+      for (int c = 0; c < row.length(); ++c) {
+        char tile = row.charAt(c);
+        if (tile == State.DIRECTION_UP || tile == State.DIRECTION_DOWN || tile == State.DIRECTION_LEFT ||
+            tile == State.DIRECTION_RIGHT) {
+          startRow = r;
+          startCol = c;
+          break;
+        }
+      }
+    }
+
+    if (startRow < 0)
+      throw new IllegalArgumentException("Map has no player: " + path);
+
+    //Place the map so the player is at (0,0), rows grow downwards while y grows upwards
+    TileGrid map = new TileGrid(State.OBSTACLE_UNKNOWN);
+    for (int r = 0; r < rows.size(); ++r) {
+      String row = rows.get(r);
+      for (int c = 0; c < row.length(); ++c) {
+        int x = c - startCol, y = startRow - r;
+        if (TileGrid.inBounds(x, y))
+          map.set(x, y, row.charAt(c));
+      }
+    }
+    map.set(0, 0, State.OBSTACLE_SPACE);
+
+    return new BenchWorld(map, stonesHeld);
+  }
+
+  /**
+   * Generates a random world surrounded by water, with the player in the middle.
+   * Open corridors along the x and y axes keep the player from being walled in on dense worlds.
+   *
+   * @param size width and height of the world including its outer water
+   * @param wallPercent percentage of tiles that are walls
+   * @param waterPercent percentage of tiles that are water
+   * @param stonesHeld stepping stones available when planning crossings
+   * @param seed seed of the random generator, the same seed always generates the same world
+   * @return the prepared world
+   */
+  public static BenchWorld synthetic(int size, int wallPercent, int waterPercent, int stonesHeld, long seed) {
+    Random random = new Random(seed);
+    TileGrid map = new TileGrid(State.OBSTACLE_UNKNOWN);
+    int min = -size / 2, max = min + size - 1;
+
+    for (int x = min; x <= max; ++x) {
+      for (int y = min; y <= max; ++y) {
+        if (!TileGrid.inBounds(x, y))
+          continue;
+
+        char tile;
+        int roll = random.nextInt(100);
+
+        if (x == min || x == max || y == min || y == max)
+          tile = State.OBSTACLE_WATER;
+        else if (x == 0 || y == 0)
+          tile = State.OBSTACLE_SPACE;
+        else if (roll < wallPercent)
+          tile = State.OBSTACLE_WALL;
+        else if (roll < wallPercent + waterPercent)
+          tile = State.OBSTACLE_WATER;
+        else
+          tile = State.OBSTACLE_SPACE;
+
+        map.set(x, y, tile);
+      }
+    }
+
+    return new BenchWorld(map, stonesHeld);
+  }
+
+  @Override
+  public int aStar() {
+    aStar.search(start, goal, HAS_KEY, HAS_AXE);
+    return aStar.getPath().size();
+  }
+
+  @Override
+  public int jumpPointSearch() {
+    jumpPointSearch.search(start, goal, HAS_KEY, HAS_AXE);
+    return jumpPointSearch.getPath().size();
+  }
+
+  @Override
+  public int bidirectionalAStar() {
+    bidirectionalAStar.search(start, goal, HAS_KEY, HAS_AXE);
+    return bidirectionalAStar.getPath().size();
+  }
+
+  @Override
+  public boolean floodFill() {
+    return floodFill.isReachable(start, goal, HAS_KEY, HAS_AXE);
+  }
+
+  @Override
+  public int spiralSeek() {
+    Point2D.Double tile = new SpiralSeek(exploredMap, start).getTile(HAS_KEY, HAS_AXE);
+    return (int) (tile.getX() + tile.getY());
+  }
+
+  @Override
+  public int frontierSearch() {
+    Point2D.Double tile = frontierSearch.getTile(start, HAS_KEY, HAS_AXE);
+    return (int) (tile.getX() + tile.getY());
+  }
+
+  @Override
+  public int updateFromView() {
+    state.updateFromView(views[nextView]);
+    nextView ^= 1;
+    return state.getDirection();
+  }
+
+  @Override
+  public int crossWater() {
+    if (!crossingPlanner.search(start, crossingGoal, stonesHeld, HAS_KEY, HAS_AXE, noInterestPoints))
+      return -1;
+
+    return crossingPlanner.getWaterTiles().size();
+  }
+
+  /**
+   * Picks the far away goal and the crossing goal.
+   */
+  private void chooseGoals() {
+    //Breadth first search from the player, the last tile dequeued has the longest path
+    int startTile = Coord.pack(start);
+    boolean[] reachable = new boolean[TileGrid.SIZE];
+    int[] queue = new int[TileGrid.SIZE];
+    int head = 0, tail = 0;
+
+    reachable[startTile] = true;
+    queue[tail++] = startTile;
+
+    while (head < tail) {
+      int tile = queue[head++];
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(tile, direction);
+
+        if (neighbour != Coord.NONE && !reachable[neighbour] &&
+            State.isTilePassable(map.get(neighbour), HAS_KEY, HAS_AXE)) {
+          reachable[neighbour] = true;
+          queue[tail++] = neighbour;
+        }
+      }
+    }
+
+    goal = Coord.toPoint(queue[tail - 1]);
+
+    //The furthest passable tile on the other side of the water that our stones can get us to
+    List<Integer> candidates = new ArrayList<>();
+    for (int p = 0; p < TileGrid.SIZE; ++p) {
+      if (!reachable[p] && State.isTilePassable(map.get(p), HAS_KEY, HAS_AXE))
+        candidates.add(p);
+    }
+    candidates.sort((a, b) -> Coord.manhattan(b, startTile) - Coord.manhattan(a, startTile));
+
+    crossingGoal = goal;
+    for (int i = 0; i < candidates.size() && i < MAX_CROSSING_CANDIDATES; ++i) {
+      Point2D.Double candidate = Coord.toPoint(candidates.get(i));
+      if (crossingPlanner.search(start, candidate, stonesHeld, HAS_KEY, HAS_AXE, noInterestPoints)) {
+        crossingGoal = candidate;
+        break;
+      }
+    }
+  }
+
+  /**
+   * Builds the view Stepping would send with the player at (x,y) facing up.
+   *
+   * @param x x coordinate of the player
+   * @param y y coordinate of the player
+   * @return 5x5 view centred on the player
+   */
+  private char[][] getView(int x, int y) {
+    char[][] view = new char[5][5];
+
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j)
+        view[i][j] = map.get(x + j - 2, y + 2 - i);
+    }
+
+    view[2][2] = State.DIRECTION_UP;
+    return view;
+  }
+}
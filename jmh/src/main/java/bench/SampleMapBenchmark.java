@@ -0,0 +1,28 @@
+package bench;
+
+import java.io.File;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * SampleMapBenchmark class.
+ *
+ * Runs the search benchmarks on the sample maps. The samples directory defaults to ../samples (relative to the
+ * jmh module) and can be changed with -Dsamples.dir=path.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class SampleMapBenchmark extends SearchBenchmarks {
+  @Param({ "s0.in", "s1.in", "s2.in", "s3.in", "s4.in", "s5.in", "s6.in", "s7.in", "s8.in", "s9.in" })
+  public String map;
+
+  @Param({ "4" })
+  public int stonesHeld;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    File samplesDir = new File(System.getProperty("samples.dir", "../samples"));
+    world = Worlds.sample(new File(samplesDir, map).getPath(), stonesHeld);
+  }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * SearchBenchmarks class.
+ *
+ * The measured operations, shared by the sample map and synthetic world benchmarks which only differ in how
+ * their world is prepared.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class SearchBenchmarks {
+  protected World world;
+
+  @Benchmark
+  public int aStarSearch() {
+    return world.aStar();
+  }
+
+  @Benchmark
+  public int jumpPointSearch() {
+    return world.jumpPointSearch();
+  }
+
+  @Benchmark
+  public int bidirectionalAStarSearch() {
+    return world.bidirectionalAStar();
+  }
+
+  @Benchmark
+  public boolean floodFillIsReachable() {
+    return world.floodFill();
+  }
+
+  @Benchmark
+  public int spiralSeekGetTile() {
+    return world.spiralSeek();
+  }
+
+  @Benchmark
+  public int frontierSearchGetTile() {
+    return world.frontierSearch();
+  }
+
+  @Benchmark
+  public int stateUpdateFromView() {
+    return world.updateFromView();
+  }
+
+  @Benchmark
+  public int crossingPlannerSearch() {
+    return world.crossWater();
+  }
+}
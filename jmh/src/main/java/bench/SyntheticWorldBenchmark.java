@@ -0,0 +1,33 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * SyntheticWorldBenchmark class.
+ *
+ * Runs the search benchmarks on random 80x80 worlds (the largest world the game allows) of varying density.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class SyntheticWorldBenchmark extends SearchBenchmarks {
+  @Param({ "80" })
+  public int size;
+
+  @Param({ "10", "25", "40" })
+  public int wallPercent;
+
+  @Param({ "0", "15", "30" })
+  public int waterPercent;
+
+  @Param({ "0", "4", "16" })
+  public int stonesHeld;
+
+  @Param({ "3411" })
+  public long seed;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    world = Worlds.synthetic(size, wallPercent, waterPercent, stonesHeld, seed);
+  }
+}
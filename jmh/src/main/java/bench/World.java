@@ -0,0 +1,57 @@
+package bench;
+
+/**
+ * World interface.
+ *
+ * A prepared map together with the workspaces of the agent's searches, ready to be measured by the benchmarks.
+ * Every call runs one operation against the same prepared state and returns a value derived from its result so
+ * the JIT can not discard the work.
+ *
+ * The game classes live in the default package which can not be imported from a named package (and JMH refuses
+ * benchmark classes in the default package), so benchmarks only see this interface. It is implemented by
+ * BenchWorld in the default package.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public interface World {
+  /**
+   * @return length of the path AStar finds from the player to a far away reachable tile
+   */
+  int aStar();
+
+  /**
+   * @return length of the path JumpPointSearch finds to the same tile, equal to the length AStar finds
+   */
+  int jumpPointSearch();
+
+  /**
+   * @return length of the path a bidirectional AStar finds to the same tile, equal to the length AStar finds
+   */
+  int bidirectionalAStar();
+
+  /**
+   * @return if FloodFill finds the far away tile reachable from the player
+   */
+  boolean floodFill();
+
+  /**
+   * @return sum of the coordinates of the revealing tile SpiralSeek picks on a partially explored map
+   */
+  int spiralSeek();
+
+  /**
+   * @return sum of the coordinates of the revealing tile FrontierSearch picks on a partially explored map
+   */
+  int frontierSearch();
+
+  /**
+   * @return direction the player faces after State merges a view of the tiles around the player into its map
+   */
+  int updateFromView();
+
+  /**
+   * @return number of water tiles in the crossing CrossingPlanner finds to a tile only reachable over water
+   */
+  int crossWater();
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import java.lang.reflect.Method;
+
+/**
+ * Worlds class.
+ *
+ * Creates World instances by calling the static factories of BenchWorld reflectively, as it lives in the default
+ * package. Reflection is only used during setup, every measured call goes through the World interface.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public final class Worlds {
+  private static final String IMPLEMENTATION = "BenchWorld";
+
+  private Worlds() {
+  }
+
+  /**
+   * Loads one of the sample maps.
+   *
+   * @param path path of the map file
+   * @param stonesHeld stepping stones available when planning crossings
+   * @return the prepared world
+   */
+  public static World sample(String path, int stonesHeld) {
+    return create("fromFile", new Class<?>[] { String.class, int.class }, path, stonesHeld);
+  }
+
+  /**
+   * Generates a random world.
+   *
+   * @param size width and height of the world including its outer wall
+   * @param wallPercent percentage of tiles that are walls
+   * @param waterPercent percentage of tiles that are water
+   * @param stonesHeld stepping stones available when planning crossings
+   * @param seed seed of the random generator, the same seed always generates the same world
+   * @return the prepared world
+   */
+  public static World synthetic(int size, int wallPercent, int waterPercent, int stonesHeld, long seed) {
+    return create("synthetic", new Class<?>[] { int.class, int.class, int.class, int.class, long.class },
+      size, wallPercent, waterPercent, stonesHeld, seed);
+  }
+
+  private static World create(String factory, Class<?>[] types, Object... args) {
+    try {
+      Method method = Class.forName(IMPLEMENTATION).getMethod(factory, types);
+      return (World) method.invoke(null, args);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create world with " + IMPLEMENTATION + "." + factory, e);
+    }
+  }
+}
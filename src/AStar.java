@@ -9,20 +9,49 @@ import java.awt.geom.Point2D;
  * The heuristic selected is the Manhattan distance heuristic (ideal for our game scenario).
  * Code based on Wikipedia A* algorithm pseudocode (see link below).
  *
+ * An instance is a reusable workspace: the score arrays are allocated once and stamped with a generation number
+ * so each new search starts in constant time instead of resetting every tile of the grid.
+ *
+ * A bidirectional instance searches forwards from the start and backwards from the goal at the same time, always
+ * expanding the side with the smaller open set, and records the shortest path seen where the two searches meet.
+ * Both searches use the average of the two Manhattan heuristics as a consistent potential (half the distance to
+ * the goal minus half the distance to the start, negated for the backward search), so they agree on the reduced
+ * cost of every move and the search can stop as soon as the sum of the best keys of both open sets reaches the
+ * best path (Ikeda et al., "A fast algorithm for finding better routes by AI search techniques"). With separate
+ * heuristics each search would have to cover most of the path on its own. The agent walks home with DistanceField
+ * instead, the mode is compared against the plain search by the JMH benchmarks.
+ *
  * @author Mohammad Ghasembeigi
- * @version 1.2
+ * @version 1.3
  * @see <a href="https://en.wikipedia.org/wiki/A*_search_algorithm#Pseudocode">Wikipedia - A* Search Algorithm
  * Pseudocode</a>
  */
-public class AStar {
-  private final Point2D.Double start, goal;
-  private final Map<Point2D.Double, Character> map;
-  private Map<Point2D.Double, Point2D.Double> cameFrom;
-
-  private Map<Point2D.Double, Integer> gScore;
-  private Map<Point2D.Double, Integer> fScore;
+public class AStar implements PathFinder {
+  private final TileSource map;
+  private int start, goal;
+  private int[] cameFrom;
+
+  private int[] gScore;
+  private int[] fScore;
+
+  //Generation stamps, entries for a tile are only valid if its stamp equals the current generation
+  private int[] scoreGeneration;
+  private int[] closedGeneration;
+  private int generation;
+
+  private IndexedMinHeap openSet; //ordered by fScore
+
+  //Backward search of a bidirectional instance, null otherwise
+  private final boolean bidirectional;
+  private int[] backwardCameFrom;
+  private int[] backwardGScore;
+  private int[] backwardScoreGeneration;
+  private int[] backwardClosedGeneration;
+  private IndexedMinHeap backwardOpenSet; //ordered by backward key
+  private int meetingTile; //tile the shortest path passes where both searches met, Coord.NONE if they did not
 
   private boolean searchCompleted;
+  private int nodesExpanded; //tiles taken off the open set by the last search
 
   private static final int INFINITY_COST = 999999; //represents an infinite value
 
@@ -30,103 +59,97 @@ public class AStar {
    *  Constructor.
    *
    * @param map the map containing information about the environment
-   * @param start the starting point we begin to search from
-   * @param goal  the goal point which we will try to find the shortest path to
    */
-  public AStar(Map<Point2D.Double, Character> map, Point2D.Double start, Point2D.Double goal) {
-    this.map = map;
-    this.start = start;
-    this.goal = goal;
-    this.cameFrom = new HashMap<>();
-
-    this.gScore = new HashMap<>();
-    this.fScore = new HashMap<>();
-
-    this.searchCompleted = false;
+  public AStar(TileSource map) {
+    this(map, false);
   }
 
   /**
-   * Implements method compare in java.util.comparator
+   *  Constructor.
    *
-   * Sorts points based on their fScore. Points that have a lower fScore have lower cos
-   * and come earlier/before (as they have a higher priority)
+   * @param map the map containing information about the environment
+   * @param bidirectional true to search from both ends, for long paths
    */
-  private class FScoreSort implements Comparator<Point2D.Double> {
-    @Override
-    public int compare(Point2D.Double one, Point2D.Double two) {
-      return fScore.get(one) - fScore.get(two);
+  public AStar(TileSource map, boolean bidirectional) {
+    this.map = map;
+    this.start = this.goal = Coord.NONE;
+    this.cameFrom = new int[TileGrid.SIZE];
+
+    this.gScore = new int[TileGrid.SIZE];
+    this.fScore = new int[TileGrid.SIZE];
+
+    this.scoreGeneration = new int[TileGrid.SIZE];
+    this.closedGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+
+    this.openSet = new IndexedMinHeap(TileGrid.SIZE);
+
+    this.bidirectional = bidirectional;
+    if (bidirectional) {
+      this.backwardCameFrom = new int[TileGrid.SIZE];
+      this.backwardGScore = new int[TileGrid.SIZE];
+      this.backwardScoreGeneration = new int[TileGrid.SIZE];
+      this.backwardClosedGeneration = new int[TileGrid.SIZE];
+      this.backwardOpenSet = new IndexedMinHeap(TileGrid.SIZE);
     }
+    this.meetingTile = Coord.NONE;
+
+    this.searchCompleted = false;
+    this.nodesExpanded = 0;
   }
 
   /**
    * Performs an A* search on the map environment from start to goal and fills 'cameFrom' with path information
-   * to be reconstructed later.
+   * to be reconstructed later. Any information from a previous search is discarded.
    *
+   * @param start the starting point we begin to search from
+   * @param goal  the goal point which we will try to find the shortest path to
    * @param hasKey if the player has the key, is used as arguments to isTilePassable to determine if we can pass
    *               through doors
    * @param hasAxe if the player has the axe, is used as arguments to isTilePassable to determine if we can pass
    *               through trees
    */
-  public void search(boolean hasKey, boolean hasAxe) {
-    FScoreSort fss = new FScoreSort();
-    PriorityQueue<Point2D.Double> openSet = new PriorityQueue<>(10, fss);
+  @Override
+  public void search(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    this.start = Coord.pack(start);
+    this.goal = Coord.pack(goal);
 
-    Set<Point2D.Double> closedSet  = new HashSet<>();
+    nextGeneration();
+    openSet.clear();
 
-    //For every grid element
-    for (int y = State.MAX_GRID_Y; y >= -State.MAX_GRID_Y; --y) {
-      for (int x = -State.MAX_GRID_X; x <= State.MAX_GRID_X; ++x) {
-        gScore.put(new Point2D.Double(x,y), INFINITY_COST);
-        fScore.put(new Point2D.Double(x,y), INFINITY_COST);
-      }
-    }
+    searchCompleted = true;
+    nodesExpanded = 0;
 
-    gScore.put(start, 0);
+    //Start or goal outside of the grid, there is no path
+    if (this.start == Coord.NONE || this.goal == Coord.NONE)
+      return;
+
+    if (bidirectional) {
+      searchBidirectional(hasKey, hasAxe);
+      return;
+    }
 
-    fScore.put(start, ManhattanDistanceHeuristic(start, goal));
-    openSet.add(start); //add start to pq
+    setScores(this.start, 0, Coord.manhattan(this.start, this.goal), Coord.NONE);
+    openSet.insert(this.start, fScore[this.start]); //add start to pq
 
     while (!openSet.isEmpty()) {
-      Point2D.Double currentTile = openSet.remove();
+      int currentTile = openSet.poll();
+      ++nodesExpanded;
 
       //Check if current tile is the goal tile
-      if (currentTile.equals(goal)) {
+      if (currentTile == this.goal) {
         //Return here, at this stage, getPath() can be called to reconstruct the path
-        searchCompleted = true;
         return;
       }
 
-      openSet.remove(currentTile);
-      closedSet.add(currentTile);
+      closedGeneration[currentTile] = generation;
 
       //For each adjacent tile of currentTile (neighbours)
-      for (int i = 0; i < 4; ++i) {
-        int neighbourX = (int) currentTile.getX();
-        int neighbourY = (int) currentTile.getY();
-
-        switch (i) {
-          case 0:
-            //Tile to right
-            neighbourX += 1;
-            break;
-          case 1:
-            //Tile to left
-            neighbourX -= 1;
-            break;
-          case 2:
-            //Tile above
-            neighbourY += 1;
-            break;
-          case 3:
-            //Tile below
-            neighbourY -= 1;
-            break;
-        }
-
-        Point2D.Double neighbour = new Point2D.Double(neighbourX, neighbourY);
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(currentTile, direction);
 
-        //Check if neighbour is in closedSet
-        if (closedSet.contains(neighbour))
+        //Check if neighbour is outside the grid or in closedSet
+        if (neighbour == Coord.NONE || closedGeneration[neighbour] == generation)
           continue;
 
         //Check if neighbour tile is passable
@@ -136,37 +159,187 @@ public class AStar {
           continue; //this tile is not passable
 
         //Calculate distance from start to a neighbour
-        int tentative_gScore = gScore.get(currentTile) + 1; //distance between current and neighbour is always 1
+        int tentative_gScore = gScore[currentTile] + 1; //distance between current and neighbour is always 1
 
         //this is not a better path, ignore it
-        if (tentative_gScore >= gScore.get(neighbour))
+        if (tentative_gScore >= getGScore(neighbour))
           continue; //this is not a better path
 
         //Otherwise, this path is the best so far, record it
-        cameFrom.put(neighbour, currentTile);
-        gScore.put(neighbour, tentative_gScore);
-        fScore.put(neighbour, tentative_gScore + ManhattanDistanceHeuristic(neighbour, goal));
-
-        //Explore this new neighbour
-        //This line must go after the fScore update line above so the priority queue updates correctly
-        if (!openSet.contains(neighbour))
-          openSet.add(neighbour);
+        setScores(neighbour, tentative_gScore, tentative_gScore + Coord.manhattan(neighbour, this.goal), currentTile);
+
+        //Explore this new neighbour, or move it up the open set if it is already waiting to be explored
+        openSet.insertOrDecrease(neighbour, fScore[neighbour]);
       }
     }
 
     //At this point, failed to find a path and the search is over
-    searchCompleted = true;
   }
 
   /**
-   *  Computes the manhattan distance formula for two points: start and goal
+   * Searches from both ends until neither open set can lead to a path shorter than the best meeting found, the
+   * shortest path then passes meetingTile.
+   */
+  private void searchBidirectional(boolean hasKey, boolean hasAxe) {
+    backwardOpenSet.clear();
+    meetingTile = Coord.NONE;
+
+    //The goal is entered by the last move so it has to be passable, the start is never entered
+    if (this.start != this.goal && !State.isTilePassable(map.get(this.goal), hasKey, hasAxe))
+      return;
+
+    int bestLength = INFINITY_COST;
+    if (this.start == this.goal) {
+      bestLength = 0;
+      meetingTile = this.start;
+    }
+
+    setScores(this.start, 0, potentialKey(0, this.start, this.goal, this.start), Coord.NONE);
+    openSet.insert(this.start, fScore[this.start]);
+    setBackwardScores(this.goal, 0, Coord.NONE);
+    backwardOpenSet.insert(this.goal, potentialKey(0, this.goal, this.start, this.goal));
+
+    //Every path not found yet costs at least half the sum of the best keys (less the offsets), stop once that is
+    //no shorter than the best path. An empty open set can not lead to any other path
+    int offset = Coord.manhattan(this.start, this.goal);
+    while (!openSet.isEmpty() && !backwardOpenSet.isEmpty() &&
+      openSet.peekPriority() + backwardOpenSet.peekPriority() < 2L * (bestLength + offset)) {
+      ++nodesExpanded;
+
+      if (openSet.size() <= backwardOpenSet.size()) {
+        int currentTile = openSet.poll();
+        closedGeneration[currentTile] = generation;
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(currentTile, direction);
+
+          if (neighbour == Coord.NONE || closedGeneration[neighbour] == generation ||
+            !State.isTilePassable(map.get(neighbour), hasKey, hasAxe))
+            continue;
+
+          int tentative_gScore = gScore[currentTile] + 1;
+          if (tentative_gScore >= getGScore(neighbour))
+            continue; //this is not a better path
+
+          setScores(neighbour, tentative_gScore, potentialKey(tentative_gScore, neighbour, this.goal, this.start),
+            currentTile);
+          openSet.insertOrDecrease(neighbour, fScore[neighbour]);
+
+          //Meets the backward search
+          if (backwardScoreGeneration[neighbour] == generation &&
+            tentative_gScore + backwardGScore[neighbour] < bestLength) {
+            bestLength = tentative_gScore + backwardGScore[neighbour];
+            meetingTile = neighbour;
+          }
+        }
+      } else {
+        int currentTile = backwardOpenSet.poll();
+        backwardClosedGeneration[currentTile] = generation;
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(currentTile, direction);
+
+          //Moves are made from neighbour into currentTile, neighbour is entered as well unless it is the start
+          if (neighbour == Coord.NONE || backwardClosedGeneration[neighbour] == generation ||
+            (neighbour != this.start && !State.isTilePassable(map.get(neighbour), hasKey, hasAxe)))
+            continue;
+
+          int tentative_gScore = backwardGScore[currentTile] + 1;
+          if (tentative_gScore >= getBackwardGScore(neighbour))
+            continue; //this is not a better path
+
+          setBackwardScores(neighbour, tentative_gScore, currentTile);
+          backwardOpenSet.insertOrDecrease(neighbour, potentialKey(tentative_gScore, neighbour, this.start, this.goal));
+
+          //Meets the forward search
+          if (scoreGeneration[neighbour] == generation && tentative_gScore + gScore[neighbour] < bestLength) {
+            bestLength = tentative_gScore + gScore[neighbour];
+            meetingTile = neighbour;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return number of tiles expanded by the last call to search()
+   */
+  @Override
+  public int getNodesExpanded() {
+    return nodesExpanded;
+  }
+
+  /**
+   * Starts a new generation which invalidates the scores and closed set of the previous search.
+   * Stamps are only cleared when the generation counter wraps around.
+   */
+  private void nextGeneration() {
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(scoreGeneration, 0);
+      Arrays.fill(closedGeneration, 0);
+      if (bidirectional) {
+        Arrays.fill(backwardScoreGeneration, 0);
+        Arrays.fill(backwardClosedGeneration, 0);
+      }
+      generation = 1;
+    }
+  }
+
+  /**
+   * @param tile packed coordinate of the tile
+   * @return gScore of tile in the current search or INFINITY_COST if it has not been reached yet
+   */
+  private int getGScore(int tile) {
+    return (scoreGeneration[tile] == generation) ? gScore[tile] : INFINITY_COST;
+  }
+
+  /**
+   * Records the scores of tile for the current search.
+   *
+   * @param tile packed coordinate of the tile
+   * @param g gScore of tile
+   * @param f fScore of tile
+   * @param parent the tile we came from to reach tile
+   */
+  private void setScores(int tile, int g, int f, int parent) {
+    scoreGeneration[tile] = generation;
+    gScore[tile] = g;
+    fScore[tile] = f;
+    cameFrom[tile] = parent;
+  }
+
+  /**
+   * Key of tile in one direction of a bidirectional search, twice its g plus twice the average potential, offset
+   * by the distance between start and goal so keys are never negative.
    *
-   * @param start starting point to be used in the manhattan distance calculation
-   * @param goal  goal point to be used in the manhattan distance calculation
-   * @return  the heuristic result (cost) of traversing from start to goal (guaranteed to be admissible)
+   * @param g gScore of tile in this direction
+   * @param tile packed coordinate of the tile
+   * @param target tile this direction searches towards
+   * @param source tile this direction searches from
    */
-  private int ManhattanDistanceHeuristic(Point2D.Double start, Point2D.Double goal) {
-    return Math.abs((int)start.getX() - (int)goal.getX()) + Math.abs((int)start.getY() - (int)goal.getY());
+  private int potentialKey(int g, int tile, int target, int source) {
+    return 2 * g + Coord.manhattan(tile, target) - Coord.manhattan(tile, source) + Coord.manhattan(start, goal);
+  }
+
+  /**
+   * @param tile packed coordinate of the tile
+   * @return gScore of tile in the backward search (distance to goal) or INFINITY_COST if it has not been reached
+   */
+  private int getBackwardGScore(int tile) {
+    return (backwardScoreGeneration[tile] == generation) ? backwardGScore[tile] : INFINITY_COST;
+  }
+
+  /**
+   * Records the scores of tile for the backward search.
+   *
+   * @param tile packed coordinate of the tile
+   * @param g distance from tile to goal
+   * @param next the tile after tile on the way to goal
+   */
+  private void setBackwardScores(int tile, int g, int next) {
+    backwardScoreGeneration[tile] = generation;
+    backwardGScore[tile] = g;
+    backwardCameFrom[tile] = next;
   }
 
   /**
@@ -177,19 +350,45 @@ public class AStar {
    *         should be reversed before being used. Otherwise, empty LinkedList meaning no path was found.
    * @throws IllegalStateException if search() is not called before this method is called
    */
+  @Override
   public LinkedList<Point2D.Double> getPath() {
 
     if (!searchCompleted)
       throw new IllegalStateException("search() has not been called yet");
 
     LinkedList<Point2D.Double> sequence = new LinkedList<>();
-    Point2D.Double u = goal;
 
-    while (cameFrom.get(u) != null) {
-      sequence.add(u);
-      u = cameFrom.get(u);
+    if (bidirectional)
+      return getBidirectionalPath(sequence);
+
+    //Goal was never reached in the last search
+    if (goal == Coord.NONE || scoreGeneration[goal] != generation)
+      return sequence;
+
+    int u = goal;
+
+    while (cameFrom[u] != Coord.NONE) {
+      sequence.add(Coord.toPoint(u));
+      u = cameFrom[u];
     }
 
     return sequence;
   }
-}
\ No newline at end of file
+
+  /**
+   * Joins the path from meetingTile to goal found by the backward search with the path from start to meetingTile
+   * found by the forward search.
+   */
+  private LinkedList<Point2D.Double> getBidirectionalPath(LinkedList<Point2D.Double> sequence) {
+    if (meetingTile == Coord.NONE)
+      return sequence;
+
+    for (int u = meetingTile; backwardCameFrom[u] != Coord.NONE; u = backwardCameFrom[u])
+      sequence.addFirst(Coord.toPoint(backwardCameFrom[u]));
+
+    for (int u = meetingTile; cameFrom[u] != Coord.NONE; u = cameFrom[u])
+      sequence.add(Coord.toPoint(u));
+
+    return sequence;
+  }
+}
@@ -8,7 +8,7 @@
 /****** ANSWER TO QUESTION ******
  Question: Briefly describe how your program works, including any algorithms and data structures employed, and explain any design decisions you made along the way.
 
- My program maintains and internal State for the game as its being played. Information from views are updated in an internal map (rotation happens automatically). The player starts at (0,0) and every other point is an offset from this point. Reachability tests are done using the Flood Fill algorithm. This is a cheap alternative to A* and allows us to determine if the player can reach another block. The function takes booleans for the key and axe possestions so theoretical computations can also take place. The A* algorithm is used only once we are sure a tile is reachable. We then use it as scarcely as possible as it is expensive to travel to locations using the shortest paths. Finally a SpiralSeek algorithm is used which checks blocks ina spiral pattern originating from the current player location. This is used in the exploreation step to find new blocks to explore that will reveal new previously unknown information.
+ My program maintains and internal State for the game as its being played. Information from views are updated in an internal map (rotation happens automatically). The player starts at (0,0) and every other point is an offset from this point. Reachability tests are done using a ComponentIndex which keeps the connected components of the map (a union-find per key and axe combination) up to date as tiles change, so a test is only a comparison of component labels. This is a cheap alternative to A* and allows us to determine if the player can reach another block. The function takes booleans for the key and axe possestions so theoretical computations can also take place. The A* algorithm (or jump point search when selected) is used only once we are sure a tile is reachable. We then use it as scarcely as possible as it is expensive to travel to locations using the shortest paths. The route to the gold is planned with D* Lite which repairs its previous plan as new tiles are revealed instead of searching again, and the route home uses a distance field to (0,0) that is kept up to date the same way, so the way home is read off without searching. Finally a FrontierSearch (a single breadth first search from the player) is used in the exploreation step to find the nearest reachable block that will reveal new previously unknown information.
 
  My main design decisions were for performance and a low number of moves made. This is why my program is fairly memory intensive (although it is still reasonable memory usage). I also refactored by code so the UML it generates is very nice even though this added a little computation time to each run, it was worth the extra code clarity.
 
@@ -18,26 +18,26 @@
  -> Yes: Do them now
 
  2. Do we have Gold?
- Yes: A* to (0,0)
+ Yes: Walk the distance field to (0,0)
 
  3. Do we see gold?
  Yes: Do reachability test with various filters.
- If reachable with our inventory -> Do A* traversal to Gold
+ If reachable with our inventory -> Do D* Lite traversal to Gold
  Otherwise, do reachability tests with missing inventory items to see what we are needing.
 
  4. Do we know location of a needed resource?
  Yes: Do reachability test to each location.
  If reachable with our inventory -> Do A* traversal to location to get resource.
 
- 5. Explore using SpiralSeek, Do we find a new tile that can reveal new information?
+ 5. Explore using FrontierSearch, Do we find a new tile that can reveal new information?
  Yes: A* to that point
 
  6. At this point there is no new information that can be gained by moving around. Is there an axe/key/stepping stone we can pick up?
  Yes: Go pick up axe/key/stepping stone
 
  7. At this point, we must use a stepping stone to to get to a new unreachable area
- We use a clever cost analysis function (Manhattan distance of a collection of points) on a combination
- of different points of all possible water tiles (where all tiles are adjacent/connected).
+ We use the CrossingPlanner (Dijkstra's algorithm) which finds the path using the fewest stepping stones,
+ preferring stones placed close to points of interest (Manhattan distance of a collection of points).
 
  We then try to get to a unreachable area which will give us (in order of preference):
  - Gold
@@ -53,22 +53,71 @@
 
 import java.util.*;
 import java.io.*;
-import java.net.*;
 
 public class Agent {
 
   //Class variables
   private MoveMaker movemaker;
+  private DecisionMetrics metrics;
 
   public Agent() {
+    this(1);
+  }
+
+  public Agent(int parallelism) {
+    this(parallelism, new DecisionMetrics(false));
+  }
+
+  public Agent(int parallelism, DecisionMetrics metrics) {
+    this(parallelism, metrics, PathFinder.ASTAR);
+  }
+
+  public Agent(int parallelism, DecisionMetrics metrics, String pathFinderName) {
     //Initialise our move maker which will make our moves for us
-    movemaker = new MoveMaker();
+    this.metrics = metrics;
+    movemaker = new MoveMaker(parallelism, metrics, pathFinderName);
+  }
+
+  /**
+   * Writes the decision metrics recorded so far as JSON, if metrics are enabled.
+   *
+   * @param fileName file to write
+   */
+  void writeMetrics( String fileName ) {
+    if( !metrics.isEnabled() ) {
+       return;
+    }
+
+    try {
+       metrics.writeJson( fileName );
+    }
+    catch( IOException e ) {
+       System.out.println("Could not write metrics: "+ fileName );
+    }
   }
 
   public char get_action( char view[][] ) {
     return movemaker.makeMove(view);
    }
 
+  /**
+   * Copies the actions already planned after the last action returned by get_action, so they can be sent ahead.
+   *
+   * @param actions array to copy the actions into
+   * @param offset index of actions to copy the first planned action to
+   * @return number of actions copied
+   */
+  int getPlannedActions( char actions[], int offset ) {
+    return movemaker.getPendingMoves(actions, offset);
+  }
+
+  /**
+   * Updates our state from a view the game engine returned for a batch, as if action had been chosen for it.
+   */
+  void replayAction( char view[][], char action ) {
+    movemaker.replayMove(view, action);
+  }
+
   void print_view( char view[][] )
    {
     int i,j;
@@ -91,58 +140,142 @@ public class Agent {
 
    public static void main( String[] args )
    {
-      InputStream in  = null;
-      OutputStream out= null;
-      Socket socket   = null;
-      Agent  agent    = new Agent();
+      Transport transport = null;
+      Agent  agent;
       char   view[][] = new char[5][5];
       char   action   = 'F';
-      int port;
-      int ch;
-      int i,j;
+      boolean silent  = false;
+      boolean batch   = false;
+      int port = 0;
+      String sharedFile = null;
+      int parallelism = 1;
+      String metricsFile = null;
+      int encoding = ViewCodec.MODE_PLAIN;
+      String pathFinder = PathFinder.ASTAR;
+      int k;
+
+      k=0;
+      while( k < args.length ) {
+         if(( args[k].compareTo("-p") == 0 )&&( k+1 < args.length )) {
+            port = Integer.parseInt( args[k+1] );
+            k += 2;
+         }
+         else if(( args[k].compareTo("-f") == 0 )&&( k+1 < args.length )) {
+            sharedFile = args[k+1];
+            k += 2;
+         }
+         else if(( args[k].compareTo("-j") == 0 )&&( k+1 < args.length )) {
+            parallelism = Integer.parseInt( args[k+1] );
+            k += 2;
+         }
+         else if(( args[k].compareTo("-m") == 0 )&&( k+1 < args.length )) {
+            metricsFile = args[k+1];
+            k += 2;
+         }
+         else if(( args[k].compareTo("-e") == 0 )&&( k+1 < args.length )) {
+            encoding = ViewCodec.modeOf( args[k+1] );
+            if( encoding < 0 ) {
+               port = 0;
+               break;
+            }
+            k += 2;
+         }
+         else if(( args[k].compareTo("-a") == 0 )&&( k+1 < args.length )) {
+            pathFinder = args[k+1];
+            if( !PathFinder.isName( pathFinder )) {
+               port = 0;
+               break;
+            }
+            k += 2;
+         }
+         else if( args[k].compareTo("-b") == 0 ) {
+            batch = true;
+            k++;
+         }
+         else if( args[k].compareTo("-s") == 0 ) {
+            silent = true;
+            k++;
+         }
+         else {
+            port = 0;
+            break;
+         }
+      }
 
-      if( args.length < 2 ) {
-         System.out.println("Usage: java Agent -p <port>\n");
+      // stopped at an unknown argument, or not exactly one of port and file given
+      if(( k < args.length )||(( port == 0 ) == ( sharedFile == null ))) {
+         System.out.println("Usage: java Agent (-p <port> | -f <file>) [-j <threads>] [-m <metrics.json>] [-e plain|packed|delta] [-a astar|jps] [-b] [-s]\n");
          System.exit(-1);
       }
 
-      port = Integer.parseInt( args[1] );
+      agent = new Agent( parallelism, new DecisionMetrics( metricsFile != null ), pathFinder );
 
-      try { // open socket to Game Engine
-         socket = new Socket( "localhost", port );
-         in  = socket.getInputStream();
-         out = socket.getOutputStream();
+      if( sharedFile != null ) {
+         try { // map the file shared with the Game Engine
+            transport = new SharedMemoryTransport( sharedFile, encoding );
+         }
+         catch( IOException e ) {
+            System.out.println("Could not map file: "+ sharedFile +" ("+ e.getMessage() +")");
+            System.exit(-1);
+         }
       }
-      catch( IOException e ) {
-         System.out.println("Could not bind to port: "+port);
-         System.exit(-1);
+      else {
+         try { // open socket to Game Engine
+            transport = new SocketTransport( "localhost", port, encoding );
+         }
+         catch( IOException e ) {
+            System.out.println("Could not bind to port: "+port);
+            System.exit(-1);
+         }
       }
 
       try { // scan 5-by-5 wintow around current location
-         while( true ) {
-            for( i=0; i < 5; i++ ) {
-               for( j=0; j < 5; j++ ) {
-                  if( !(( i == 2 )&&( j == 2 ))) {
-                     ch = in.read();
-                     if( ch == -1 ) {
-                        System.exit(-1);
-                     }
-                     view[i][j] = (char) ch;
+         if( batch ) {
+            // send the planned actions along with each action, the game engine
+            // answers with the view after each one it applied
+            char actions[] = new char[Transport.MAX_BATCH];
+            char views[][][] = new char[Transport.MAX_BATCH][5][5];
+            int applied = transport.readView( view ) ? 1 : 0;
+
+            while( applied > 0 ) {
+               if( !silent ) {
+                  agent.print_view( view );
+               }
+               actions[0] = agent.get_action( view );
+               transport.writeActions( actions, 1 + agent.getPlannedActions( actions, 1 ));
+
+               applied = transport.readViews( views );
+               for( int v = 0; v + 1 < applied; v++ ) {
+                  if( !silent ) {
+                     agent.print_view( views[v] );
                   }
+                  agent.replayAction( views[v], actions[v+1] );
+               }
+               if( applied > 0 ) {
+                  view = views[applied-1];
+               }
+            }
+         }
+         else {
+            while( transport.readView( view ) ) {
+               if( !silent ) {
+                  agent.print_view( view );
                }
+               action = agent.get_action( view );
+               transport.writeAction( action );
             }
-            agent.print_view( view ); // COMMENT THIS OUT BEFORE SUBMISSION
-            action = agent.get_action( view );
-            out.write( action );
          }
+         agent.writeMetrics( metricsFile );
+         System.exit(-1); // game engine closed the connection
       }
       catch( IOException e ) {
-         System.out.println("Lost connection to port: "+ port );
+         System.out.println("Lost connection to "+( sharedFile != null ? "file: "+ sharedFile : "port: "+ port ));
+         agent.writeMetrics( metricsFile );
          System.exit(-1);
       }
       finally {
          try {
-            socket.close();
+            transport.close();
          }
          catch( IOException e ) {}
       }
@@ -0,0 +1,278 @@
+import java.util.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmark class.
+ *
+ * Headless regression benchmark. Plays every map (*.in) in a directory with the Agent inside this JVM on a
+ * Simulator, so each map is only read once however many games are played on it, and records the number of moves
+ * needed to win, the wall time of the game, the per-move decision latency of the agent and the bytes allocated by
+ * the agent.
+ *
+ * Results are compared against a golden file holding the expected moves and wall time of each map. The benchmark
+ * fails (exit status 1) if a game is not won, needs more moves than its golden value allows or takes longer than
+ * its golden time allows. Run with -u to write the current results as the new golden file instead.
+ *
+ * The agent plans its paths with AStar unless another path finder is selected with -a, so path finders can be
+ * compared on whole games. Routes may tie-break differently and change the move counts, so every path finder has
+ * its own golden file: golden.txt for AStar and golden-<name>.txt (e.g. golden-jps.txt) for the others.
+ *
+ * Usage: java Benchmark [-d samplesDir] [-g goldenFile] [-m maxmoves] [-w warmups] [-M movesPercent]
+ *        [-T timePercent] [-a astar|jps] [-u]
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class Benchmark {
+  //Games shorter than this many milliseconds are too noisy to be compared by percentage alone
+  private static final double TIME_SLACK_MS = 5.0;
+
+  /**
+   * Measurements of a single game.
+   */
+  private static class Result {
+    String mapName;
+    boolean won;
+    int moves;
+    double wallMs;
+    double meanMoveUs;
+    double maxMoveUs;
+    long allocatedBytes;
+  }
+
+  /**
+   * Expected results of a single game as stored in the golden file.
+   */
+  private static class Golden {
+    int moves;
+    double wallMs;
+  }
+
+  public static void main(String[] args) {
+    String samplesDir = "samples";
+    String goldenFile = null;
+    int maxMoves = 10000;
+    int warmups = 2;
+    double movesPercent = 0;
+    double timePercent = 100;
+    boolean update = false;
+    String pathFinder = PathFinder.ASTAR;
+
+    for (int k = 0; k < args.length; ++k) {
+      switch (args[k]) {
+        case "-d": samplesDir = args[++k]; break;
+        case "-g": goldenFile = args[++k]; break;
+        case "-m": maxMoves = Integer.parseInt(args[++k]); break;
+        case "-w": warmups = Integer.parseInt(args[++k]); break;
+        case "-M": movesPercent = Double.parseDouble(args[++k]); break;
+        case "-T": timePercent = Double.parseDouble(args[++k]); break;
+        case "-a": pathFinder = args[++k]; break;
+        case "-u": update = true; break;
+        default: usage();
+      }
+    }
+
+    if (!PathFinder.isName(pathFinder))
+      usage();
+
+    if (goldenFile == null)
+      goldenFile = new File(samplesDir, getGoldenFileName(pathFinder)).getPath();
+
+    File[] maps = new File(samplesDir).listFiles((dir, name) -> name.endsWith(".in"));
+    if (maps == null || maps.length == 0) {
+      System.out.println("No maps found in " + samplesDir);
+      System.exit(-1);
+    }
+    Arrays.sort(maps);
+
+    List<Result> results = new ArrayList<>();
+    for (File map : maps) {
+      Simulator simulator = null;
+      try {
+        simulator = new Simulator(WorldTemplate.load(map.getPath()));
+      } catch (IOException | IllegalArgumentException e) {
+        System.out.println("Could not read map " + map + ": " + e.getMessage());
+        System.exit(-1);
+      }
+
+      //Warm up the JIT so timings reflect steady state decision making
+      for (int i = 0; i < warmups; ++i)
+        play(map.getName(), simulator, maxMoves, pathFinder);
+
+      results.add(play(map.getName(), simulator, maxMoves, pathFinder));
+    }
+
+    if (update) {
+      writeGolden(goldenFile, results, pathFinder);
+      printReport(results, Collections.emptyMap(), movesPercent, timePercent);
+      System.out.println("Golden file written to " + goldenFile);
+      return;
+    }
+
+    Map<String, Golden> golden = readGolden(goldenFile);
+    boolean passed = printReport(results, golden, movesPercent, timePercent);
+
+    System.exit(passed ? 0 : 1);
+  }
+
+  private static void usage() {
+    System.out.println("Usage: java Benchmark [-d samplesDir] [-g goldenFile] [-m maxmoves] [-w warmups] " +
+      "[-M movesPercent] [-T timePercent] [-a astar|jps] [-u]");
+    System.exit(-1);
+  }
+
+  /**
+   * @param pathFinder name of the path finder the agent uses
+   * @return name of the default golden file of the path finder, inside the samples directory
+   */
+  private static String getGoldenFileName(String pathFinder) {
+    return PathFinder.ASTAR.equals(pathFinder) ? "golden.txt" : "golden-" + pathFinder + ".txt";
+  }
+
+  /**
+   * Plays a single game with a new Agent on a freshly reset simulator.
+   *
+   * @param mapName name of the map, for the report
+   * @param simulator simulator of the map
+   * @param maxMoves the game is lost if it is not won within this many moves
+   * @param pathFinder name of the path finder the agent uses
+   * @return the measurements of the game
+   */
+  private static Result play(String mapName, Simulator simulator, int maxMoves, String pathFinder) {
+    Result result = new Result();
+    result.mapName = mapName;
+
+    simulator.reset();
+    long totalMoveNs = 0, maxMoveNs = 0;
+    long allocatedBefore = getAllocatedBytes();
+    long start = System.nanoTime();
+
+    Agent agent = new Agent(1, new DecisionMetrics(false), pathFinder);
+    while (simulator.getMoves() < maxMoves) {
+      char[][] view = simulator.view();
+
+      long moveStart = System.nanoTime();
+      char action = agent.get_action(view);
+      long moveNs = System.nanoTime() - moveStart;
+
+      totalMoveNs += moveNs;
+      maxMoveNs = Math.max(maxMoveNs, moveNs);
+
+      if (simulator.step(action) != Simulator.Outcome.PLAYING)
+        break;
+    }
+
+    result.wallMs = (System.nanoTime() - start) / 1e6;
+    result.allocatedBytes = getAllocatedBytes() - allocatedBefore;
+    result.won = simulator.getOutcome() == Simulator.Outcome.WON;
+    result.moves = simulator.getMoves();
+    result.meanMoveUs = totalMoveNs / 1e3 / result.moves;
+    result.maxMoveUs = maxMoveNs / 1e3;
+
+    return result;
+  }
+
+  /**
+   * @return bytes allocated by the current thread so far, or 0 if the JVM does not support measuring it
+   */
+  private static long getAllocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    return 0;
+  }
+
+  /**
+   * Prints a table of results and compares them against the golden results.
+   *
+   * @param results results of this run
+   * @param golden golden results by map name (may be empty)
+   * @param movesPercent allowed increase in moves over the golden value, as a percentage
+   * @param timePercent allowed increase in wall time over the golden value, as a percentage
+   * @return true if every game was won and no result regressed past its threshold
+   */
+  private static boolean printReport(List<Result> results, Map<String, Golden> golden, double movesPercent,
+                                     double timePercent) {
+    boolean passed = true;
+
+    System.out.printf("%-10s %6s %10s %12s %12s %14s  %s%n", "map", "moves", "wall ms", "mean us/mv",
+      "max us/mv", "alloc bytes", "status");
+
+    for (Result r : results) {
+      String status = "ok";
+      Golden g = golden.get(r.mapName);
+
+      if (!r.won) {
+        status = "FAIL: not won";
+      } else if (g != null && r.moves > g.moves * (1 + movesPercent / 100)) {
+        status = "FAIL: moves regressed from " + g.moves;
+      } else if (g != null && r.wallMs > g.wallMs * (1 + timePercent / 100) + TIME_SLACK_MS) {
+        status = String.format("FAIL: time regressed from %.1f ms", g.wallMs);
+      } else if (g == null && !golden.isEmpty()) {
+        status = "no golden result";
+      }
+
+      if (status.startsWith("FAIL"))
+        passed = false;
+
+      System.out.printf("%-10s %6d %10.1f %12.1f %12.1f %14d  %s%n", r.mapName, r.moves, r.wallMs, r.meanMoveUs,
+        r.maxMoveUs, r.allocatedBytes, status);
+    }
+
+    return passed;
+  }
+
+  /**
+   * Reads a golden file. Each non-comment line holds: map moves wallMs
+   *
+   * @param goldenFile path of the golden file
+   * @return golden results by map name
+   */
+  private static Map<String, Golden> readGolden(String goldenFile) {
+    Map<String, Golden> golden = new HashMap<>();
+
+    try (BufferedReader in = new BufferedReader(new FileReader(goldenFile))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#"))
+          continue;
+
+        String[] fields = line.split("\\s+");
+        Golden g = new Golden();
+        g.moves = Integer.parseInt(fields[1]);
+        g.wallMs = Double.parseDouble(fields[2]);
+        golden.put(fields[0], g);
+      }
+    } catch (IOException e) {
+      System.out.println("Could not read golden file: " + goldenFile);
+      System.exit(-1);
+    }
+
+    return golden;
+  }
+
+  /**
+   * Writes results as a golden file.
+   *
+   * @param goldenFile path of the golden file
+   * @param results results to write
+   * @param pathFinder name of the path finder the results were played with
+   */
+  private static void writeGolden(String goldenFile, List<Result> results, String pathFinder) {
+    String options = PathFinder.ASTAR.equals(pathFinder) ? "-u" : "-a " + pathFinder + " -u";
+
+    try (PrintWriter out = new PrintWriter(new FileWriter(goldenFile))) {
+      out.println("# Golden results for Benchmark, regenerate with: java Benchmark " + options);
+      out.println("# map moves wall_ms");
+      for (Result r : results)
+        out.printf(Locale.ROOT, "%s %d %.1f%n", r.mapName, r.moves, r.wallMs);
+    } catch (IOException e) {
+      System.out.println("Could not write golden file: " + goldenFile);
+      System.exit(-1);
+    }
+  }
+}
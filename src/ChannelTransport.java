@@ -0,0 +1,173 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * ChannelTransport class.
+ *
+ * Transport over a pair of blocking byte channels, the base of SocketTransport and SharedMemoryTransport. Frames
+ * are read ahead into a reused ByteBuffer with as few read calls as the channel allows (normally one per frame or
+ * batch of frames) and actions are written directly to the channel, so there is no per-byte stream call or
+ * unflushed output buffer between the agent and the game engine. A batch of actions is written in one call.
+ *
+ * A compact view encoding (see ViewCodec) can be requested. It is negotiated after the first view, which is always
+ * sent as plain ASCII, and falls back to plain views if the game engine does not accept it.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public abstract class ChannelTransport implements Transport {
+  private final ReadableByteChannel input;
+  private final WritableByteChannel output;
+  private final ByteBuffer inBuffer;
+  private final ByteBuffer actionBuffer;
+  private final ByteBuffer batchBuffer;
+
+  private final int requestedEncoding;
+  private ViewCodec codec;
+  private boolean negotiated;
+
+  /**
+   * Constructor.
+   *
+   * @param input channel the game engine sends views on
+   * @param output channel the game engine reads actions from
+   * @param encoding view encoding to request once the first view has been read (a ViewCodec mode), the game engine
+   *                 must support negotiation (GameServer) unless encoding is ViewCodec.MODE_PLAIN
+   */
+  protected ChannelTransport(ReadableByteChannel input, WritableByteChannel output, int encoding) {
+    this.input = input;
+    this.output = output;
+
+    this.inBuffer = ByteBuffer.allocateDirect(1 + MAX_BATCH * ViewCodec.MAX_FRAME_SIZE);
+    this.inBuffer.flip(); //nothing read ahead yet
+    this.actionBuffer = ByteBuffer.allocateDirect(2);
+    this.batchBuffer = ByteBuffer.allocateDirect(2 + MAX_BATCH);
+
+    this.requestedEncoding = encoding;
+    this.codec = new ViewCodec(ViewCodec.MODE_PLAIN);
+    this.negotiated = encoding == ViewCodec.MODE_PLAIN;
+  }
+
+  /**
+   * @return the view encoding in use, plain until the first view has been read
+   */
+  public int getEncoding() {
+    return codec.getMode();
+  }
+
+  @Override
+  public boolean readView(char view[][]) throws IOException {
+    if (!readFrame(view))
+      return false;
+
+    if (!negotiated)
+      negotiate();
+
+    return true;
+  }
+
+  /**
+   * Requests the encoding given to the constructor and switches to the encoding the game engine accepted.
+   */
+  private void negotiate() throws IOException {
+    negotiated = true;
+
+    actionBuffer.clear();
+    actionBuffer.put(ENCODING_MARKER);
+    actionBuffer.put((byte) requestedEncoding);
+    actionBuffer.flip();
+    while (actionBuffer.hasRemaining())
+      output.write(actionBuffer);
+
+    if (!require(1))
+      throw new EOFException("game engine closed the connection while negotiating the view encoding");
+
+    int accepted = inBuffer.get();
+    if (!ViewCodec.isMode(accepted))
+      throw new IOException("game engine answered with unknown view encoding " + accepted);
+
+    codec = new ViewCodec(accepted);
+  }
+
+  @Override
+  public void writeAction(char action) throws IOException {
+    actionBuffer.clear();
+    actionBuffer.put((byte) action);
+    actionBuffer.flip();
+
+    while (actionBuffer.hasRemaining())
+      output.write(actionBuffer);
+  }
+
+  @Override
+  public void writeActions(char[] actions, int count) throws IOException {
+    batchBuffer.clear();
+    batchBuffer.put(BATCH_MARKER);
+    batchBuffer.put((byte) count);
+    for (int i = 0; i < count; ++i)
+      batchBuffer.put((byte) actions[i]);
+    batchBuffer.flip();
+
+    while (batchBuffer.hasRemaining())
+      output.write(batchBuffer);
+  }
+
+  @Override
+  public int readViews(char views[][][]) throws IOException {
+    if (!require(1))
+      return -1;
+
+    int count = inBuffer.get() & 0xFF;
+    for (int v = 0; v < count; ++v) {
+      if (!readFrame(views[v]))
+        return -1;
+    }
+
+    return count;
+  }
+
+  /**
+   * Reads one view frame in the current encoding into view.
+   *
+   * @return false if the game engine closed the connection first
+   */
+  private boolean readFrame(char view[][]) throws IOException {
+    if (!require(1) || !require(codec.frameLength(inBuffer)))
+      return false;
+
+    codec.decode(inBuffer, view);
+    return true;
+  }
+
+  /**
+   * Reads from the channel until at least length bytes are available in inBuffer.
+   *
+   * @return false if the game engine closed the connection first
+   */
+  private boolean require(int length) throws IOException {
+    if (inBuffer.remaining() >= length)
+      return true;
+
+    inBuffer.compact();
+    try {
+      while (inBuffer.position() < length) {
+        if (input.read(inBuffer) < 0)
+          return false;
+      }
+    } finally {
+      inBuffer.flip();
+    }
+
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      output.close();
+    } finally {
+      input.close();
+    }
+  }
+}
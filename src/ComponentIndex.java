@@ -0,0 +1,191 @@
+/**
+ * ComponentIndex class.
+ *
+ * Maintains the connected components of passable tiles in a TileGrid for each of the four (hasKey, hasAxe)
+ * inventory combinations, so reachability tests are a comparison of component labels instead of a FloodFill.
+ * Components are stored in a union-find (disjoint set) structure per inventory combination.
+ *
+ * Tiles that become passable are merged into their neighbouring components as soon as they change. Tiles that
+ * stop being passable can split a component, which union-find can not undo, so that inventory combination is
+ * rebuilt from the map the next time it is queried instead.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see <a href="https://en.wikipedia.org/wiki/Disjoint-set_data_structure">Wikipedia - Disjoint-set data
+ * structure</a>
+ */
+public class ComponentIndex implements TileChangeListener {
+  private static final int NUM_MODES = 4;
+  private static final int IMPASSABLE = -1; //label of tiles that do not belong to any component
+
+  private final TileGrid map;
+  private final int[][] parent; //union-find parent of every tile for every mode
+  private final boolean[] needsRebuild;
+  private long nodesVisited; //tiles scanned by rebuilds plus tiles looked up by queries, since construction
+
+  /**
+   * Constructor.
+   *
+   * @param map the map whose components should be indexed
+   */
+  public ComponentIndex(TileGrid map) {
+    this.map = map;
+    this.parent = new int[NUM_MODES][TileGrid.SIZE];
+    this.needsRebuild = new boolean[NUM_MODES];
+
+    for (int mode = 0; mode < NUM_MODES; ++mode)
+      rebuild(mode);
+  }
+
+  /**
+   * Must be called whenever a tile of the map changes so the components can be updated.
+   *
+   * @param p packed coordinate of the tile that changed
+   * @param oldTile the previous value of the tile
+   * @param newTile the new value of the tile
+   */
+  @Override
+  public void onTileChanged(int p, char oldTile, char newTile) {
+    if (p == Coord.NONE || oldTile == newTile)
+      return;
+
+    for (int mode = 0; mode < NUM_MODES; ++mode) {
+      //Combinations that are waiting to be rebuilt will pick up the change then
+      if (needsRebuild[mode])
+        continue;
+
+      boolean hasKey = modeHasKey(mode), hasAxe = modeHasAxe(mode);
+      boolean wasPassable = State.isTilePassable(oldTile, hasKey, hasAxe);
+      boolean isPassable = State.isTilePassable(newTile, hasKey, hasAxe);
+
+      if (!wasPassable && isPassable) {
+        //New passable tile, join it with every passable neighbour
+        int[] parents = parent[mode];
+        parents[p] = p;
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(p, direction);
+          if (neighbour != Coord.NONE && parents[neighbour] != IMPASSABLE)
+            union(parents, p, neighbour);
+        }
+      }
+      else if (wasPassable && !isPassable) {
+        needsRebuild[mode] = true;
+      }
+    }
+  }
+
+  /**
+   * Determines if goal is reachable from start given the inventory.
+   * Equivalent to FloodFill#isReachable(boolean, boolean) on the same map.
+   *
+   * @param start packed coordinate of the starting tile
+   * @param goal packed coordinate of the goal tile
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   * @return true if start and goal are both passable and in the same component, false otherwise
+   */
+  public boolean isReachable(int start, int goal, boolean hasKey, boolean hasAxe) {
+    if (start == Coord.NONE || goal == Coord.NONE)
+      return false;
+
+    int mode = getMode(hasKey, hasAxe);
+
+    if (needsRebuild[mode])
+      rebuild(mode);
+
+    int[] parents = parent[mode];
+    nodesVisited += 2;
+
+    if (parents[start] == IMPASSABLE || parents[goal] == IMPASSABLE)
+      return false;
+
+    return find(parents, start) == find(parents, goal);
+  }
+
+  /**
+   * @return number of tiles scanned by rebuilds and looked up by isReachable() since this index was created
+   */
+  public long getNodesVisited() {
+    return nodesVisited;
+  }
+
+  /**
+   * Recomputes the components of a mode from scratch.
+   *
+   * @param mode the inventory combination to rebuild
+   */
+  private void rebuild(int mode) {
+    boolean hasKey = modeHasKey(mode), hasAxe = modeHasAxe(mode);
+    int[] parents = parent[mode];
+
+    for (int p = 0; p < TileGrid.SIZE; ++p)
+      parents[p] = State.isTilePassable(map.get(p), hasKey, hasAxe) ? p : IMPASSABLE;
+
+    //Joining every tile with the tile to its left and below covers every adjacent pair once
+    for (int p = 0; p < TileGrid.SIZE; ++p) {
+      if (parents[p] == IMPASSABLE)
+        continue;
+
+      int left = Coord.step(p, State.LEFT);
+      if (left != Coord.NONE && parents[left] != IMPASSABLE)
+        union(parents, p, left);
+
+      int below = Coord.step(p, State.DOWN);
+      if (below != Coord.NONE && parents[below] != IMPASSABLE)
+        union(parents, p, below);
+    }
+
+    needsRebuild[mode] = false;
+    nodesVisited += TileGrid.SIZE;
+  }
+
+  /**
+   * Finds the label (root) of the component containing p, compressing the path as it goes.
+   *
+   * @param parents union-find parents of a mode
+   * @param p a passable tile
+   * @return label of the component containing p
+   */
+  private static int find(int[] parents, int p) {
+    int root = p;
+    while (parents[root] != root)
+      root = parents[root];
+
+    //Path compression
+    while (parents[p] != root) {
+      int next = parents[p];
+      parents[p] = root;
+      p = next;
+    }
+
+    return root;
+  }
+
+  /**
+   * Merges the components containing a and b.
+   *
+   * @param parents union-find parents of a mode
+   * @param a a passable tile
+   * @param b a passable tile
+   */
+  private static void union(int[] parents, int a, int b) {
+    int rootA = find(parents, a);
+    int rootB = find(parents, b);
+
+    if (rootA != rootB)
+      parents[rootA] = rootB;
+  }
+
+  private static int getMode(boolean hasKey, boolean hasAxe) {
+    return (hasKey ? 1 : 0) | (hasAxe ? 2 : 0);
+  }
+
+  private static boolean modeHasKey(int mode) {
+    return (mode & 1) != 0;
+  }
+
+  private static boolean modeHasAxe(int mode) {
+    return (mode & 2) != 0;
+  }
+}
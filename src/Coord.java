@@ -0,0 +1,112 @@
+import java.awt.geom.Point2D;
+
+/**
+ * Coord class.
+ *
+ * Helpers for packed coordinates. A packed coordinate is a single int which is equal to the index of the tile
+ * in TileGrid, so it can be used directly to look up tiles and to index per-tile arrays of size TileGrid.SIZE.
+ * Search classes work with packed coordinates internally so that no objects are created for every tile they
+ * inspect; Point2D.Double objects are only created when results are handed back to callers.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see TileGrid#index(int, int)
+ */
+public final class Coord {
+  //Represents a coordinate that lies outside of the grid
+  final static int NONE = -1;
+
+  //Order in which the search classes visit the 4 adjacent tiles of a tile (right, left, above, below)
+  final static int[] NEIGHBOUR_DIRECTIONS = { State.RIGHT, State.LEFT, State.UP, State.DOWN };
+
+  private Coord() {}
+
+  /**
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return packed coordinate of (x,y) or NONE if (x,y) is outside the grid
+   */
+  public static int pack(int x, int y) {
+    if (!TileGrid.inBounds(x, y))
+      return NONE;
+
+    return TileGrid.index(x, y);
+  }
+
+  /**
+   * @param point point to pack
+   * @return packed coordinate of point or NONE if point is outside the grid
+   */
+  public static int pack(Point2D.Double point) {
+    return pack((int) point.getX(), (int) point.getY());
+  }
+
+  /**
+   * @param p packed coordinate (not NONE)
+   * @return x coordinate of p
+   */
+  public static int x(int p) {
+    return p / TileGrid.HEIGHT - State.MAX_GRID_X;
+  }
+
+  /**
+   * @param p packed coordinate (not NONE)
+   * @return y coordinate of p
+   */
+  public static int y(int p) {
+    return p % TileGrid.HEIGHT - State.MAX_GRID_Y;
+  }
+
+  /**
+   * @param p packed coordinate (not NONE)
+   * @return a new point equal to p
+   */
+  public static Point2D.Double toPoint(int p) {
+    return new Point2D.Double(x(p), y(p));
+  }
+
+  /**
+   * Returns the packed coordinate of the tile adjacent to p in the given direction.
+   *
+   * @param p packed coordinate (not NONE)
+   * @param direction the direction to step in (UP, RIGHT, DOWN, LEFT)
+   * @return the adjacent packed coordinate or NONE if stepping would leave the grid
+   * @see State#UP
+   * @see State#RIGHT
+   * @see State#DOWN
+   * @see State#LEFT
+   */
+  public static int step(int p, int direction) {
+    switch (direction) {
+      case State.UP:
+        return (p % TileGrid.HEIGHT == TileGrid.HEIGHT - 1) ? NONE : p + 1;
+      case State.DOWN:
+        return (p % TileGrid.HEIGHT == 0) ? NONE : p - 1;
+      case State.RIGHT:
+        return (p + TileGrid.HEIGHT >= TileGrid.SIZE) ? NONE : p + TileGrid.HEIGHT;
+      case State.LEFT:
+        return (p - TileGrid.HEIGHT < 0) ? NONE : p - TileGrid.HEIGHT;
+    }
+
+    return NONE;
+  }
+
+  /**
+   * @param p packed coordinate (not NONE)
+   * @param dx offset to add to the x coordinate
+   * @param dy offset to add to the y coordinate
+   * @return packed coordinate of p offset by (dx,dy) or NONE if the result is outside the grid
+   */
+  public static int offset(int p, int dx, int dy) {
+    return pack(x(p) + dx, y(p) + dy);
+  }
+
+  /**
+   * @param a first packed coordinate
+   * @param b second packed coordinate
+   * @return manhattan distance between a and b
+   */
+  public static int manhattan(int a, int b) {
+    return Math.abs(x(a) - x(b)) + Math.abs(y(a) - y(b));
+  }
+}
@@ -0,0 +1,192 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * CrossingPlanner class.
+ *
+ * Plans how to reach a goal that can only be reached by placing stepping stones on water.
+ * Uses Dijkstra's algorithm where moving onto a passable tile costs one step and moving onto a water tile costs
+ * one step plus one stepping stone. Costs are compared by stones used first, then by how close the stones are
+ * placed to a list of interest points (sum of manhattan distances, eg. to the gold or other stepping stones) and
+ * finally by steps taken. So the plan found uses the fewest stones possible, prefers stones that also lead towards
+ * the interest points and is the shortest such path. Plans needing more stones than the player holds are rejected.
+ *
+ * An instance is a reusable workspace, its arrays are allocated once and stamped with a generation number
+ * so each new search starts in constant time.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see <a href="https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm">Wikipedia - Dijkstra's algorithm</a>
+ */
+public class CrossingPlanner {
+  //Costs are packed into a long as (stones, distance of stones to the interest points, steps)
+  //Steps are always less than TileGrid.SIZE (< 2^16) and the distance field has 2^24 values before reaching stones
+  private static final int DISTANCE_SHIFT = 16;
+  private static final int STONE_SHIFT = 40;
+
+  private final TileSource map;
+  private int goal;
+
+  private long[] cost;
+  private int[] cameFrom;
+  private int[] costGeneration;
+  private int[] closedGeneration;
+  private int generation;
+
+  private IndexedMinHeap openSet; //ordered by cost
+
+  private boolean planFound;
+  private int nodesExpanded; //tiles taken off the open set by the last search
+
+  /**
+   * Constructor.
+   *
+   * @param map the map containing information about the environment
+   */
+  public CrossingPlanner(TileSource map) {
+    this.map = map;
+    this.goal = Coord.NONE;
+
+    this.cost = new long[TileGrid.SIZE];
+    this.cameFrom = new int[TileGrid.SIZE];
+    this.costGeneration = new int[TileGrid.SIZE];
+    this.closedGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+
+    this.openSet = new IndexedMinHeap(TileGrid.SIZE);
+
+    this.planFound = false;
+    this.nodesExpanded = 0;
+  }
+
+  /**
+   * Searches for the cheapest way to get from start to goal using at most stonesHeld stepping stones.
+   * Only known water tiles (State.OBSTACLE_WATER) can have stones placed on them.
+   *
+   * @param start the starting point (typically the current player position)
+   * @param goal  the goal point
+   * @param stonesHeld the number of stepping stones that can be placed
+   * @param hasKey if the player has the key, is used as arguments to isTilePassable to determine if we can pass
+   *               through doors
+   * @param hasAxe if the player has the axe, is used as arguments to isTilePassable to determine if we can pass
+   *               through trees
+   * @param interestPoints stones closer to these points are preferred when several plans use the same number of
+   *                       stones, may be empty for no preference
+   * @return true if goal can be reached with at most stonesHeld stones, false otherwise
+   */
+  public boolean search(Point2D.Double start, Point2D.Double goal, int stonesHeld, boolean hasKey, boolean hasAxe,
+                        List<Point2D.Double> interestPoints) {
+    int startTile = Coord.pack(start);
+    this.goal = Coord.pack(goal);
+
+    int[] interestTiles = new int[interestPoints.size()];
+    int numInterestTiles = 0;
+    for (Point2D.Double point : interestPoints) {
+      int tile = Coord.pack(point);
+      if (tile != Coord.NONE)
+        interestTiles[numInterestTiles++] = tile;
+    }
+
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(costGeneration, 0);
+      Arrays.fill(closedGeneration, 0);
+      generation = 1;
+    }
+
+    openSet.clear();
+    planFound = false;
+    nodesExpanded = 0;
+
+    if (startTile == Coord.NONE || this.goal == Coord.NONE)
+      return false;
+
+    setCost(startTile, 0, Coord.NONE);
+    openSet.insert(startTile, 0);
+
+    while (!openSet.isEmpty()) {
+      int currentTile = openSet.poll();
+      ++nodesExpanded;
+
+      if (currentTile == this.goal) {
+        planFound = true;
+        return true;
+      }
+
+      closedGeneration[currentTile] = generation;
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(currentTile, direction);
+
+        if (neighbour == Coord.NONE || closedGeneration[neighbour] == generation)
+          continue;
+
+        char tile = map.get(neighbour);
+        long tentativeCost = cost[currentTile] + 1;
+
+        if (tile == State.OBSTACLE_WATER) {
+          tentativeCost += 1L << STONE_SHIFT;
+
+          //Not enough stones to get this far
+          if ((tentativeCost >>> STONE_SHIFT) > stonesHeld)
+            continue;
+
+          for (int i = 0; i < numInterestTiles; ++i)
+            tentativeCost += (long) Coord.manhattan(neighbour, interestTiles[i]) << DISTANCE_SHIFT;
+        }
+        else if (!State.isTilePassable(tile, hasKey, hasAxe)) {
+          continue; //this tile is not passable
+        }
+
+        if (costGeneration[neighbour] == generation && tentativeCost >= cost[neighbour])
+          continue; //this is not a better path
+
+        setCost(neighbour, tentativeCost, currentTile);
+        openSet.insertOrDecrease(neighbour, tentativeCost);
+      }
+    }
+
+    //Goal can not be reached with the stones we hold
+    return false;
+  }
+
+  /**
+   * @return number of tiles expanded by the last call to search()
+   */
+  public int getNodesExpanded() {
+    return nodesExpanded;
+  }
+
+  /**
+   * Records the cost of reaching tile in the current search.
+   *
+   * @param tile packed coordinate of the tile
+   * @param tileCost cost of reaching tile
+   * @param parent the tile we came from to reach tile
+   */
+  private void setCost(int tile, long tileCost, int parent) {
+    costGeneration[tile] = generation;
+    cost[tile] = tileCost;
+    cameFrom[tile] = parent;
+  }
+
+  /**
+   * Returns the water tiles that stepping stones must be placed on to follow the plan found by search().
+   * Precondition: search() returned true
+   *
+   * @return list of water tiles along the plan, ordered from start to goal (empty if no stones are needed)
+   * @throws IllegalStateException if the last call to search() did not find a plan
+   */
+  public LinkedList<Point2D.Double> getWaterTiles() {
+    if (!planFound)
+      throw new IllegalStateException("search() has not found a plan");
+
+    LinkedList<Point2D.Double> waterTiles = new LinkedList<>();
+
+    for (int u = goal; u != Coord.NONE; u = cameFrom[u]) {
+      if (map.get(u) == State.OBSTACLE_WATER)
+        waterTiles.addFirst(Coord.toPoint(u));
+    }
+
+    return waterTiles;
+  }
+}
@@ -0,0 +1,304 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * DStarLite class.
+ *
+ * Incremental planner for routes to a fixed goal from a start that moves, such as the way to the gold. It searches
+ * backwards from the goal with the D* Lite algorithm and keeps its search tree (g and rhs values and the open set)
+ * between calls to plan(), so when the player has moved and views have changed some tiles only the tiles whose
+ * cost changed and the part of the tree depending on them are searched again. The G cost for each
+ * adjacent move (4-way movement) is 1 and the heuristic is the Manhattan distance, as in AStar.
+ *
+ * The planner must be registered with State as a TileChangeListener. Changes are only queued as they happen and
+ * repaired by the next call to plan(). Planning towards a different goal or with a different inventory discards
+ * the tree and starts a new search.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see <a href="http://idm-lab.org/bib/abstracts/papers/aaai02b.pdf">Koenig and Likhachev - D* Lite</a>
+ * @see AStar
+ */
+public class DStarLite implements TileChangeListener {
+  private static final int INFINITY_COST = 1 << 29; //represents an infinite value, keys never overflow an int
+
+  private final TileSource map;
+  private int start, goal;
+  private boolean hasKey, hasAxe;
+  private boolean active; //true while the search tree belongs to goal and the inventory
+  private int km; //key modifier, the heuristic distance the start moved since the tree was created
+
+  private final int[] gScore;
+  private final int[] rhs;
+
+  //Generation stamps, scores of a tile are only valid if its stamp equals the current generation
+  private final int[] scoreGeneration;
+  private int generation;
+
+  private final IndexedMinHeap openSet; //inconsistent tiles ordered by key
+
+  //Tiles whose passability changed since the last plan, without duplicates
+  private final int[] changedTiles;
+  private final int[] changedGeneration;
+  private int numChangedTiles;
+
+  private int nodesExpanded; //tiles taken off the open set by the last plan
+
+  /**
+   * Constructor.
+   *
+   * @param map the map containing information about the environment
+   */
+  public DStarLite(TileSource map) {
+    this.map = map;
+    this.start = this.goal = Coord.NONE;
+    this.active = false;
+
+    this.gScore = new int[TileGrid.SIZE];
+    this.rhs = new int[TileGrid.SIZE];
+    this.scoreGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+
+    this.openSet = new IndexedMinHeap(TileGrid.SIZE);
+
+    this.changedTiles = new int[TileGrid.SIZE];
+    this.changedGeneration = new int[TileGrid.SIZE];
+    this.numChangedTiles = 0;
+  }
+
+  /**
+   * Finds a shortest path from start to goal, repairing the search tree of the previous plan if it was made for
+   * the same goal and inventory.
+   *
+   * @param start the starting point, usually the player location
+   * @param goal the goal point which we will try to find the shortest path to
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   * @return true if there is a path, getPath() returns it
+   */
+  public boolean plan(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    int newStart = Coord.pack(start), newGoal = Coord.pack(goal);
+    nodesExpanded = 0;
+
+    //Start or goal outside of the grid, there is no path
+    if (newStart == Coord.NONE || newGoal == Coord.NONE) {
+      active = false;
+      this.start = newStart;
+      return false;
+    }
+
+    if (!active || newGoal != this.goal || hasKey != this.hasKey || hasAxe != this.hasAxe) {
+      initialize(newStart, newGoal, hasKey, hasAxe);
+    } else {
+      //The keys in the open set were computed from the old start, shifting every new key by the distance moved
+      //keeps them comparable without reordering the open set
+      km += Coord.manhattan(this.start, newStart);
+      this.start = newStart;
+
+      for (int i = 0; i < numChangedTiles; ++i) {
+        int tile = changedTiles[i];
+        updateVertex(tile);
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(tile, direction);
+          if (neighbour != Coord.NONE)
+            updateVertex(neighbour);
+        }
+      }
+    }
+
+    clearChangedTiles();
+    computeShortestPath();
+
+    return getGScore(this.start) < INFINITY_COST;
+  }
+
+  /**
+   * Starts a new search tree for goal.
+   */
+  private void initialize(int start, int goal, boolean hasKey, boolean hasAxe) {
+    this.start = start;
+    this.goal = goal;
+    this.hasKey = hasKey;
+    this.hasAxe = hasAxe;
+    this.km = 0;
+    this.active = true;
+
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(scoreGeneration, 0);
+      generation = 1;
+    }
+    openSet.clear();
+
+    setScores(goal, INFINITY_COST, 0);
+    openSet.insert(goal, calculateKey(goal));
+  }
+
+  /**
+   * Expands inconsistent tiles until the start is consistent and no tile in the open set could lead to a shorter
+   * path for the start. The start has to be consistent, not only not underconsistent, as its g value is what the
+   * path is read from.
+   */
+  private void computeShortestPath() {
+    while (!openSet.isEmpty() &&
+      (openSet.peekPriority() < calculateKey(start) || getRhs(start) != getGScore(start))) {
+      int u = openSet.peek();
+      long oldKey = openSet.peekPriority();
+      long newKey = calculateKey(u);
+      ++nodesExpanded;
+
+      if (oldKey < newKey) {
+        //The key was computed for an earlier start
+        openSet.update(u, newKey);
+      } else if (getGScore(u) > getRhs(u)) {
+        //Overconsistent, the tile got cheaper
+        setScores(u, getRhs(u), getRhs(u));
+        openSet.remove(u);
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(u, direction);
+          if (neighbour != Coord.NONE && neighbour != goal && isPassable(neighbour) && isPassable(u)) {
+            if (gScore[u] + 1 < getRhs(neighbour))
+              setScores(neighbour, getGScore(neighbour), gScore[u] + 1);
+            updateMembership(neighbour);
+          }
+        }
+      } else {
+        //Underconsistent, the tile got more expensive, its neighbours may depend on it
+        setScores(u, INFINITY_COST, getRhs(u));
+        updateVertex(u);
+
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(u, direction);
+          if (neighbour != Coord.NONE)
+            updateVertex(neighbour);
+        }
+      }
+    }
+  }
+
+  /**
+   * Recomputes the rhs value of tile from its neighbours and puts it in or out of the open set.
+   */
+  private void updateVertex(int tile) {
+    if (tile != goal) {
+      int best = INFINITY_COST;
+
+      if (isPassable(tile)) {
+        for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+          int neighbour = Coord.step(tile, direction);
+          if (neighbour != Coord.NONE && isPassable(neighbour))
+            best = Math.min(best, getGScore(neighbour) + 1);
+        }
+      }
+
+      setScores(tile, getGScore(tile), Math.min(best, INFINITY_COST));
+    }
+
+    updateMembership(tile);
+  }
+
+  /**
+   * Keeps tile in the open set, with its current key, exactly while it is inconsistent.
+   */
+  private void updateMembership(int tile) {
+    boolean inconsistent = getGScore(tile) != getRhs(tile);
+
+    if (inconsistent && openSet.contains(tile))
+      openSet.update(tile, calculateKey(tile));
+    else if (inconsistent)
+      openSet.insert(tile, calculateKey(tile));
+    else
+      openSet.remove(tile);
+  }
+
+  /**
+   * @return the key of tile, [min(g, rhs) + h + km; min(g, rhs)] packed into one long
+   */
+  private long calculateKey(int tile) {
+    int cost = Math.min(getGScore(tile), getRhs(tile));
+    return ((long) (cost + Coord.manhattan(start, tile) + km) << 32) | cost;
+  }
+
+  private boolean isPassable(int tile) {
+    return State.isTilePassable(map.get(tile), hasKey, hasAxe);
+  }
+
+  private int getGScore(int tile) {
+    return (scoreGeneration[tile] == generation) ? gScore[tile] : INFINITY_COST;
+  }
+
+  private int getRhs(int tile) {
+    return (scoreGeneration[tile] == generation) ? rhs[tile] : INFINITY_COST;
+  }
+
+  private void setScores(int tile, int g, int rhsValue) {
+    scoreGeneration[tile] = generation;
+    gScore[tile] = g;
+    rhs[tile] = rhsValue;
+  }
+
+  /**
+   * Queues tile for repair by the next plan if its passability changed for the inventory of the search tree.
+   */
+  @Override
+  public void onTileChanged(int p, char oldTile, char newTile) {
+    if (!active || p == Coord.NONE || changedGeneration[p] == generation)
+      return;
+
+    if (State.isTilePassable(oldTile, hasKey, hasAxe) == State.isTilePassable(newTile, hasKey, hasAxe))
+      return;
+
+    changedGeneration[p] = generation;
+    changedTiles[numChangedTiles++] = p;
+  }
+
+  private void clearChangedTiles() {
+    for (int i = 0; i < numChangedTiles; ++i)
+      changedGeneration[changedTiles[i]] = 0;
+
+    numChangedTiles = 0;
+  }
+
+  /**
+   * Returns the path found by the last plan, following the cheapest neighbour from the start to the goal.
+   *
+   * @return LinkedList of Point2D.Double objects that form a path from goal to start (excluding start point), in
+   *         the same order as AStar.getPath(). Otherwise, empty LinkedList meaning no path was found.
+   */
+  public LinkedList<Point2D.Double> getPath() {
+    LinkedList<Point2D.Double> sequence = new LinkedList<>();
+
+    if (!active || start == Coord.NONE || getGScore(start) >= INFINITY_COST)
+      return sequence;
+
+    int u = start;
+    while (u != goal) {
+      int next = Coord.NONE, best = INFINITY_COST;
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(u, direction);
+        if (neighbour != Coord.NONE && isPassable(neighbour) && getGScore(neighbour) < best) {
+          best = getGScore(neighbour);
+          next = neighbour;
+        }
+      }
+
+      //Every tile on a shortest path has a neighbour one step closer to the goal
+      if (next == Coord.NONE || best >= getGScore(u))
+        throw new IllegalStateException("search tree is inconsistent at " + Coord.toPoint(u));
+
+      sequence.addFirst(Coord.toPoint(next));
+      u = next;
+    }
+
+    return sequence;
+  }
+
+  /**
+   * @return number of tiles expanded by the last call to plan()
+   */
+  public int getNodesExpanded() {
+    return nodesExpanded;
+  }
+}
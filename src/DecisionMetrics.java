@@ -0,0 +1,201 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * DecisionMetrics class.
+ *
+ * Records what the MoveMaker decision cascade does: how often each stage is entered, how often each stage makes
+ * the decision (adds the moves), the time spent in each stage and, for every kind of search, the number of
+ * invocations, the nodes they expanded or visited and the time they took. The results can be written as JSON at
+ * the end of a game.
+ *
+ * Stage 1 covers updating the state from the view and handing out queued moves, so a decision made by stage 1
+ * means a queued move was made without deciding anything. Search times are also included in the time of the stage
+ * that ran them. Stepping stone candidates evaluated in parallel on a pool are only included in the stage 7 time.
+ *
+ * A disabled instance records nothing and never reads the clock, every method returns after checking a single
+ * final flag.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class DecisionMetrics {
+  public static final int NUM_STAGES = 8;
+
+  //Kinds of search
+  public static final int ASTAR = 0;
+  public static final int FRONTIER_SEARCH = 1;
+  public static final int REACHABILITY = 2;
+  public static final int CROSSING_PLANNER = 3;
+  public static final int D_STAR_LITE = 4;
+  public static final int JUMP_POINT_SEARCH = 5;
+  public static final int HOME_DISTANCE_FIELD = 6;
+  private static final String[] SEARCH_NAMES = { "aStar", "frontierSearch", "reachability", "crossingPlanner",
+    "dStarLite", "jumpPointSearch", "homeDistanceField" };
+
+  private static final int NO_STAGE = 0;
+
+  private final boolean enabled;
+
+  private long moves;
+
+  //Indexed by stage number, index 0 is unused
+  private final long[] stageEntries;
+  private final long[] stageDecisions;
+  private final long[] stageNanos;
+
+  //Indexed by kind of search
+  private final long[] searchCalls;
+  private final long[] searchNodes;
+  private final long[] searchNanos;
+
+  private int currentStage;
+  private long stageStart;
+
+  /**
+   * Constructor.
+   *
+   * @param enabled false to create an instance that records nothing
+   */
+  public DecisionMetrics(boolean enabled) {
+    this.enabled = enabled;
+    this.stageEntries = new long[NUM_STAGES + 1];
+    this.stageDecisions = new long[NUM_STAGES + 1];
+    this.stageNanos = new long[NUM_STAGES + 1];
+    this.searchCalls = new long[SEARCH_NAMES.length];
+    this.searchNodes = new long[SEARCH_NAMES.length];
+    this.searchNanos = new long[SEARCH_NAMES.length];
+    this.currentStage = NO_STAGE;
+  }
+
+  /**
+   * @return true if this instance records metrics
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Must be called when a move starts being made, enters stage 1.
+   */
+  public void beginMove() {
+    if (!enabled)
+      return;
+
+    ++moves;
+    switchStage(1, System.nanoTime());
+    ++stageEntries[1];
+  }
+
+  /**
+   * Must be called when the decision cascade enters stage. The time since the previous stage was entered is
+   * charged to the previous stage.
+   *
+   * @param stage the stage being entered (1 to NUM_STAGES)
+   */
+  public void enterStage(int stage) {
+    if (!enabled)
+      return;
+
+    switchStage(stage, System.nanoTime());
+    ++stageEntries[stage];
+  }
+
+  /**
+   * Must be called once the decision cascade has finished. The stage currently entered is credited with the
+   * decision and the remaining work (handing out the move) is charged to stage 1 again.
+   */
+  public void endDecision() {
+    if (!enabled)
+      return;
+
+    ++stageDecisions[currentStage];
+    switchStage(1, System.nanoTime());
+  }
+
+  /**
+   * Must be called when the move has been made.
+   */
+  public void endMove() {
+    if (!enabled)
+      return;
+
+    switchStage(NO_STAGE, System.nanoTime());
+  }
+
+  /**
+   * @return the value that must be passed to endSearch() once the search is over
+   */
+  public long startSearch() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records one invocation of a search.
+   *
+   * @param search kind of search, one of the search kind constants (ASTAR to HOME_DISTANCE_FIELD)
+   * @param start value returned by startSearch() before the search
+   * @param nodes nodes the search expanded or visited
+   */
+  public void endSearch(int search, long start, long nodes) {
+    if (!enabled)
+      return;
+
+    ++searchCalls[search];
+    searchNodes[search] += nodes;
+    searchNanos[search] += System.nanoTime() - start;
+  }
+
+  /**
+   * Charges the time since the current stage was entered to it and makes stage the current stage.
+   */
+  private void switchStage(int stage, long now) {
+    if (currentStage != NO_STAGE)
+      stageNanos[currentStage] += now - stageStart;
+
+    currentStage = stage;
+    stageStart = now;
+  }
+
+  /**
+   * @return the recorded metrics as a JSON object
+   */
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+
+    json.append("{\n");
+    json.append("  \"enabled\": ").append(enabled).append(",\n");
+    json.append("  \"moves\": ").append(moves).append(",\n");
+
+    json.append("  \"stages\": [\n");
+    for (int stage = 1; stage <= NUM_STAGES; ++stage) {
+      json.append(String.format(Locale.ROOT, "    {\"stage\": %d, \"entries\": %d, \"decisions\": %d, \"nanos\": %d}",
+        stage, stageEntries[stage], stageDecisions[stage], stageNanos[stage]));
+      json.append(stage < NUM_STAGES ? ",\n" : "\n");
+    }
+    json.append("  ],\n");
+
+    json.append("  \"searches\": {\n");
+    for (int search = 0; search < SEARCH_NAMES.length; ++search) {
+      json.append(String.format(Locale.ROOT, "    \"%s\": {\"calls\": %d, \"nodes\": %d, \"nanos\": %d}",
+        SEARCH_NAMES[search], searchCalls[search], searchNodes[search], searchNanos[search]));
+      json.append(search < SEARCH_NAMES.length - 1 ? ",\n" : "\n");
+    }
+    json.append("  }\n");
+
+    json.append("}\n");
+    return json.toString();
+  }
+
+  /**
+   * Writes the recorded metrics as JSON.
+   *
+   * @param fileName file to write
+   * @throws IOException if the file can not be written
+   */
+  public void writeJson(String fileName) throws IOException {
+    try (Writer out = new FileWriter(fileName)) {
+      out.write(toJson());
+    }
+  }
+}
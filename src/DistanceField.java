@@ -0,0 +1,218 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * DistanceField class.
+ *
+ * Maintains the BFS distance (number of forward moves) from every tile of a TileGrid to a fixed root tile, for a
+ * single inventory, so a shortest path to the root can be read off from any tile by walking to a neighbour one
+ * move closer until the root is reached, without searching.
+ *
+ * Tiles that become passable, whether revealed by a view or opened by picking up the key or the axe, only make
+ * distances shorter, so the new distances are propagated outwards from those tiles as soon as they change. Tiles
+ * that stop being passable can make distances longer, which is not repaired in place, the field is rebuilt from
+ * the map the next time it is queried instead (like ComponentIndex).
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see ComponentIndex
+ */
+public class DistanceField implements TileChangeListener {
+  public static final int UNREACHABLE = Integer.MAX_VALUE; //distance of tiles that can not reach the root
+
+  private final TileGrid map;
+  private final int root;
+  private boolean hasKey, hasAxe;
+
+  private final int[] distance;
+  private final int[] queue; //FIFO of tiles whose distance got shorter and whose neighbours must be checked
+  private boolean needsRebuild;
+  private long nodesVisited; //tiles whose distance was set or looked up, since construction
+
+  /**
+   * Constructor.
+   *
+   * @param map the map whose distances should be maintained
+   * @param root the point distances are measured to
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   */
+  public DistanceField(TileGrid map, Point2D.Double root, boolean hasKey, boolean hasAxe) {
+    this.map = map;
+    this.root = Coord.pack(root);
+    this.hasKey = hasKey;
+    this.hasAxe = hasAxe;
+
+    this.distance = new int[TileGrid.SIZE];
+    this.queue = new int[TileGrid.SIZE];
+
+    rebuild();
+  }
+
+  /**
+   * Must be called whenever a tile of the map changes so the distances can be updated.
+   *
+   * @param p packed coordinate of the tile that changed
+   * @param oldTile the previous value of the tile
+   * @param newTile the new value of the tile
+   */
+  @Override
+  public void onTileChanged(int p, char oldTile, char newTile) {
+    //A rebuild will pick up the change
+    if (p == Coord.NONE || needsRebuild)
+      return;
+
+    boolean wasPassable = State.isTilePassable(oldTile, hasKey, hasAxe);
+    boolean isPassable = State.isTilePassable(newTile, hasKey, hasAxe);
+
+    if (!wasPassable && isPassable)
+      propagateFrom(p);
+    else if (wasPassable && !isPassable)
+      needsRebuild = true;
+  }
+
+  /**
+   * Changes the inventory the distances are measured for. Doors or trees that become passable are treated as
+   * tiles that became passable, losing a tool rebuilds the field.
+   *
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   */
+  public void setInventory(boolean hasKey, boolean hasAxe) {
+    if (hasKey == this.hasKey && hasAxe == this.hasAxe)
+      return;
+
+    boolean lostTool = (this.hasKey && !hasKey) || (this.hasAxe && !hasAxe);
+    boolean openDoors = hasKey && !this.hasKey, openTrees = hasAxe && !this.hasAxe;
+    this.hasKey = hasKey;
+    this.hasAxe = hasAxe;
+
+    if (lostTool)
+      needsRebuild = true;
+    if (needsRebuild)
+      return;
+
+    for (int p = 0; p < TileGrid.SIZE; ++p) {
+      char tile = map.get(p);
+      if ((openDoors && tile == State.OBSTACLE_DOOR) || (openTrees && tile == State.OBSTACLE_TREE))
+        propagateFrom(p);
+    }
+  }
+
+  /**
+   * @param p packed coordinate of a tile
+   * @return number of forward moves needed to get from p to the root or UNREACHABLE
+   */
+  public int getDistance(int p) {
+    if (needsRebuild)
+      rebuild();
+
+    ++nodesVisited;
+    return distance[p];
+  }
+
+  /**
+   * Walks from start to the root, always to a neighbour one move closer. Neighbours straight ahead are preferred
+   * so the path needs as few turns as possible, otherwise neighbours are tried in Coord.NEIGHBOUR_DIRECTIONS order.
+   *
+   * @param start the starting point (typically the current player position)
+   * @param direction the direction the player is facing at start
+   * @return LinkedList of Point2D.Double objects that form a shortest path from the root to start (excluding start
+   *         point), in the same order as AStar.getPath(). Otherwise, empty LinkedList meaning start can not reach
+   *         the root.
+   */
+  public LinkedList<Point2D.Double> getPathFrom(Point2D.Double start, int direction) {
+    LinkedList<Point2D.Double> sequence = new LinkedList<>();
+    int u = Coord.pack(start);
+
+    if (u == Coord.NONE || getDistance(u) == UNREACHABLE)
+      return sequence;
+
+    while (distance[u] > 0) {
+      int next = Coord.step(u, direction);
+
+      if (next == Coord.NONE || getDistance(next) != distance[u] - 1) {
+        for (int candidate : Coord.NEIGHBOUR_DIRECTIONS) {
+          next = Coord.step(u, candidate);
+          if (next != Coord.NONE && getDistance(next) == distance[u] - 1) {
+            direction = candidate;
+            break;
+          }
+        }
+      }
+
+      sequence.addFirst(Coord.toPoint(next));
+      u = next;
+    }
+
+    return sequence;
+  }
+
+  /**
+   * @return number of tiles whose distance was set or looked up since construction
+   */
+  public long getNodesVisited() {
+    return nodesVisited;
+  }
+
+  /**
+   * Gives p the shortest distance through its neighbours and passes shorter distances on to every tile that can
+   * now reach the root faster. Tiles are taken in FIFO order so each tile is set at most once.
+   */
+  private void propagateFrom(int p) {
+    int best = (p == root) ? 0 : UNREACHABLE;
+
+    for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+      int neighbour = Coord.step(p, direction);
+      if (neighbour != Coord.NONE && distance[neighbour] != UNREACHABLE)
+        best = Math.min(best, distance[neighbour] + 1);
+    }
+
+    if (best >= distance[p])
+      return;
+
+    distance[p] = best;
+    ++nodesVisited;
+    propagate(p);
+  }
+
+  /**
+   * Breadth first search from the tiles in the queue (starting with first) which lowers the distance of every
+   * passable tile a shorter way is found to.
+   */
+  private void propagate(int first) {
+    int head = 0, tail = 0;
+    queue[tail++] = first;
+
+    while (head < tail) {
+      int u = queue[head++];
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(u, direction);
+
+        if (neighbour == Coord.NONE || distance[neighbour] <= distance[u] + 1 ||
+          !State.isTilePassable(map.get(neighbour), hasKey, hasAxe))
+          continue;
+
+        distance[neighbour] = distance[u] + 1;
+        ++nodesVisited;
+        queue[tail++] = neighbour;
+      }
+    }
+  }
+
+  /**
+   * Recomputes every distance with a breadth first search from the root.
+   */
+  private void rebuild() {
+    Arrays.fill(distance, UNREACHABLE);
+    needsRebuild = false;
+
+    if (root == Coord.NONE || !State.isTilePassable(map.get(root), hasKey, hasAxe))
+      return;
+
+    distance[root] = 0;
+    ++nodesVisited;
+    propagate(root);
+  }
+}
@@ -8,86 +8,105 @@ import java.awt.geom.Point2D;
  * Based on Flood Fill pseudocode from Wikipedia (see link).
  * Alternative non-recursive implementation was selected to avoid heap space issues in Java runtime.
  *
+ * An instance is a reusable workspace, its queue and visited arrays are allocated once and stamped with a
+ * generation number so each new test starts in constant time.
+ *
  * @author Mohammad Ghasembeigi
- * @version 1.0
+ * @version 1.1
  * @see <a href="https://en.wikipedia.org/wiki/Flood_fill#Alternative_implementations">Wikipedia - Flood Fill
  * Pseudocode Alternative implementation</a>
  */
 public class FloodFill {
 
-  private final Point2D.Double start, goal;
-  private final Map<Point2D.Double, Character> map;
+  private final TileSource map;
+
+  //Every tile is added to the queue at most once so the queue never needs to grow
+  private int[] queue;
+  private int[] connectedGeneration; //tiles whose stamp equals generation are connected to the start
+  private int generation;
 
-  public FloodFill(Map<Point2D.Double, Character> map, Point2D.Double start, Point2D.Double goal) {
+  /**
+   * Constructor.
+   *
+   * @param map the map containing information about the environment
+   */
+  public FloodFill(TileSource map) {
     this.map = map;
-    this.start = start;
-    this.goal = goal;
+    this.queue = new int[TileGrid.SIZE];
+    this.connectedGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+  }
+
+  /**
+   * Delegates to isReachable(int start, int goal, boolean hasKey, boolean hasAxe).
+   *
+   * @param start the starting point
+   * @param goal the point to test
+   * @param hasKey if the player has the key
+   * @param hasAxe if the player has the axe
+   * @return true if goal point is reachable from start point, false otherwise
+   */
+  public boolean isReachable(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    return isReachable(Coord.pack(start), Coord.pack(goal), hasKey, hasAxe);
   }
 
   /**
    * Performs a FloodFill reachable test on the map environment from start to goal.
    *
+   * @param start packed coordinate of the starting point
+   * @param goal packed coordinate of the point to test
    * @param hasKey if the player has the key, is used as arguments to isTilePassable to determine if we can pass
    *               through doors
    * @param hasAxe if the player has the axe, is used as arguments to isTilePassable to determine if we can pass
    *               through trees
    * @return true if goal point is reachable from start point, false otherwise
    */
-  public boolean isReachable(boolean hasKey, boolean hasAxe) {
-    Queue<Point2D.Double> q = new ArrayDeque<>();
-    Set<Point2D.Double> isConnected = new HashSet<>();
+  boolean isReachable(int start, int goal, boolean hasKey, boolean hasAxe) {
+    if (start == Coord.NONE || goal == Coord.NONE) //sanity check
+      return false;
+
+    //Start a new generation, stamps are only cleared when the counter wraps around
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(connectedGeneration, 0);
+      generation = 1;
+    }
 
-    q.add(start);
+    int head = 0, tail = 0;
 
-    while (!q.isEmpty()) {
-      Point2D.Double first = q.remove();
+    //Apply filters
+    //Non-passable tiles are ignored
+    if (!State.isTilePassable(map.get(start), hasKey, hasAxe))
+      return false;
 
-      if (map.get(first) == null) //sanity check
-        continue;
+    if (start == goal)
+      return true;
 
-      char tile = map.get(first);
+    connectedGeneration[start] = generation;
+    queue[tail++] = start;
 
-      //If not processed
-      if (!isConnected.contains(first)) {
-        //Apply filters
-        //Non-passable tiles are ignored
-        if (!State.isTilePassable(tile, hasKey, hasAxe))
+    while (head < tail) {
+      int first = queue[head++];
+
+      //Add west, east, north, south nodes
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(first, direction);
+
+        if (neighbour == Coord.NONE || connectedGeneration[neighbour] == generation)
+          continue;
+
+        if (!State.isTilePassable(map.get(neighbour), hasKey, hasAxe))
           continue; //this tile is not passable
 
-        //Mark first as processed
-        isConnected.add(first);
-
-        //Add west, east, north, south nodes
-        for (int i = 0; i < 4; ++i) {
-          int neighbourX = (int)first.getX();
-          int neighbourY = (int)first.getY();
-
-          switch (i) {
-            case 0:
-              //Tile to right
-              neighbourX += 1;
-              break;
-            case 1:
-              //Tile to left
-              neighbourX -= 1;
-              break;
-            case 2:
-              //Tile above
-              neighbourY += 1;
-              break;
-            case 3:
-              //Tile below
-              neighbourY -= 1;
-              break;
-          }
-
-          Point2D.Double neighbour = new Point2D.Double(neighbourX, neighbourY);
-          if (!isConnected.contains(neighbour))
-            q.add(neighbour);
-        }
+        //No need to flood any further once the goal is connected
+        if (neighbour == goal)
+          return true;
+
+        //Mark neighbour as processed
+        connectedGeneration[neighbour] = generation;
+        queue[tail++] = neighbour;
       }
     }
 
-    return isConnected.contains(goal);
+    return false;
   }
-}
\ No newline at end of file
+}
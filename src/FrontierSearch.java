@@ -0,0 +1,100 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * FrontierSearch class.
+ *
+ * Finds the nearest reachable, passable and revealing point (if possible) using a single breadth first search
+ * from the player. Unlike SpiralSeek, which checks tiles in spiral order and runs a FloodFill for every candidate,
+ * the first revealing tile dequeued is guaranteed to be reachable and to have the shortest path from the start.
+ *
+ * An instance is a reusable workspace, its queue and visited arrays are allocated once and stamped with a
+ * generation number so each new search starts in constant time.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see SpiralSeek#isRevealingPoint(TileGrid, int)
+ * @see <a href="https://en.wikipedia.org/wiki/Breadth-first_search">Wikipedia - Breadth-first search</a>
+ */
+public class FrontierSearch {
+  private final TileGrid map;
+
+  private int[] queue;
+  private int[] visitedGeneration;
+  private int generation;
+  private int nodesVisited; //tiles dequeued by the last search
+
+  /**
+   * Constructor.
+   *
+   * @param map the map containing information about the environment
+   */
+  public FrontierSearch(TileGrid map) {
+    this.map = map;
+    this.queue = new int[TileGrid.SIZE];
+    this.visitedGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+    this.nodesVisited = 0;
+  }
+
+  /**
+   * Returns the closest tile (by path length) that will reveal new information about the environment once
+   * travelled to.
+   *
+   * @param start the starting point we search outwards from (typically the current player position)
+   * @param hasKey  if the player has the key, is used as arguments to isTilePassable to determine if we can pass
+   *                through doors
+   * @param hasAxe  if the player has the axe, is used as arguments to isTilePassable to determine if we can pass
+   *                through trees
+   * @return  a reachable, passable, and revealing point if one is found, otherwise the 'start' point is returned
+   */
+  public Point2D.Double getTile(Point2D.Double start, boolean hasKey, boolean hasAxe) {
+    int startTile = Coord.pack(start);
+
+    nodesVisited = 0;
+
+    if (startTile == Coord.NONE)
+      return start;
+
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(visitedGeneration, 0);
+      generation = 1;
+    }
+
+    int head = 0, tail = 0;
+    visitedGeneration[startTile] = generation;
+    queue[tail++] = startTile;
+
+    while (head < tail) {
+      int tile = queue[head++];
+      nodesVisited = head;
+
+      //The start tile is never a destination
+      if (tile != startTile && SpiralSeek.isRevealingPoint(map, tile))
+        return Coord.toPoint(tile);
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        int neighbour = Coord.step(tile, direction);
+
+        if (neighbour == Coord.NONE || visitedGeneration[neighbour] == generation)
+          continue;
+
+        if (!State.isTilePassable(map.get(neighbour), hasKey, hasAxe))
+          continue; //this tile is not passable
+
+        visitedGeneration[neighbour] = generation;
+        queue[tail++] = neighbour;
+      }
+    }
+
+    //No revealing tile is reachable
+    return start;
+  }
+
+  /**
+   * @return number of tiles visited by the last call to getTile()
+   */
+  public int getNodesVisited() {
+    return nodesVisited;
+  }
+}
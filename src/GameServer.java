@@ -0,0 +1,363 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * GameServer class.
+ *
+ * Multi-session game engine. Unlike Stepping, which plays a single game with the first agent that connects, the
+ * server keeps accepting agents and plays every connection as its own game on its own Simulator, so many agents
+ * can play at once. The wire protocol is the same as Stepping's: a 24 byte view is sent, a 1 byte action is read.
+ * Agents may instead send a batch of actions, which is answered with the views after each action applied in one
+ * frame (see Transport), saving a round trip for every queued move, and may negotiate a compact view encoding
+ * (see ViewCodec) once they have received the first view.
+ *
+ * With -f the server plays a single session with an agent on the same machine through a memory mapped file (see
+ * SharedMemoryLink) instead of listening on a port. The move timeout then includes the time the agent takes to
+ * start and map the file before its first action.
+ *
+ * Every session is limited to a number of moves and to the time an agent may take to answer each view. Sessions
+ * run on virtual threads when the JVM supports them (Java 21 or later), otherwise on a cached pool of platform
+ * threads. Once the requested number of sessions has finished (or the server is stopped) the results are
+ * aggregated and printed.
+ *
+ * Usage: java GameServer (-p port | -f file) -i map [-n sessions] [-m maxmoves] [-t moveTimeoutMs] [-s]
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class GameServer {
+  /**
+   * How a session ended.
+   */
+  enum Status {
+    WON, LOST, MAX_MOVES, TIMEOUT, DISCONNECTED
+  }
+
+  /**
+   * Result of a single session.
+   */
+  private static class SessionResult {
+    final int id;
+    final Status status;
+    final int moves;
+    final double ms;
+    final long bytesSent;
+
+    SessionResult(int id, Status status, int moves, double ms, long bytesSent) {
+      this.id = id;
+      this.status = status;
+      this.moves = moves;
+      this.ms = ms;
+      this.bytesSent = bytesSent;
+    }
+  }
+
+  private final WorldTemplate template;
+  private final int maxMoves;
+  private final int moveTimeoutMs;
+  private final boolean silent;
+  private final boolean canPack;
+  private final Queue<SessionResult> results;
+
+  /**
+   * Constructor.
+   *
+   * @param template the map every session is played on
+   * @param maxMoves a session ends once this many moves have been made
+   * @param moveTimeoutMs a session ends if the agent takes longer than this to send an action, 0 to wait forever
+   * @param silent true to only print the aggregated results
+   */
+  public GameServer(WorldTemplate template, int maxMoves, int moveTimeoutMs, boolean silent) {
+    this.template = template;
+    this.maxMoves = maxMoves;
+    this.moveTimeoutMs = moveTimeoutMs;
+    this.silent = silent;
+    this.canPack = ViewCodec.canPack(template);
+    this.results = new ConcurrentLinkedQueue<>();
+  }
+
+  public static void main(String[] args) {
+    String mapName = null, sharedFile = null;
+    int port = 0, sessions = 0, maxMoves = 10000, moveTimeoutMs = 10000;
+    boolean silent = false;
+
+    try {
+      for (int k = 0; k < args.length; ++k) {
+        switch (args[k]) {
+          case "-p": port = Integer.parseInt(args[++k]); break;
+          case "-i": mapName = args[++k]; break;
+          case "-f": sharedFile = args[++k]; break;
+          case "-n": sessions = Integer.parseInt(args[++k]); break;
+          case "-m": maxMoves = Integer.parseInt(args[++k]); break;
+          case "-t": moveTimeoutMs = Integer.parseInt(args[++k]); break;
+          case "-s": silent = true; break;
+          default: port = 0; k = args.length;
+        }
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      port = 0;
+    }
+
+    if ((port == 0) == (sharedFile == null) || mapName == null) {
+      System.out.println("Usage: java GameServer (-p port | -f file) -i map [-n sessions] [-m maxmoves] [-t moveTimeoutMs] [-s]");
+      System.exit(-1);
+    }
+
+    WorldTemplate template = null;
+    try {
+      template = WorldTemplate.load(mapName);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Could not read map " + mapName + ": " + e.getMessage());
+      System.exit(-1);
+    }
+
+    GameServer server = new GameServer(template, maxMoves, moveTimeoutMs, silent);
+
+    if (sharedFile != null) {
+      try {
+        server.serveSharedMemory(sharedFile);
+      } catch (IOException e) {
+        System.out.println("Could not share file " + sharedFile + ": " + e.getMessage());
+        System.exit(-1);
+      }
+
+      server.printSummary();
+      return;
+    }
+
+    //Without a session limit the server runs until it is stopped, print what was played when that happens
+    if (sessions == 0)
+      Runtime.getRuntime().addShutdownHook(new Thread(server::printSummary));
+
+    try {
+      server.serve(port, sessions);
+    } catch (IOException e) {
+      System.out.println("Could not listen on port: " + port);
+      System.exit(-1);
+    }
+
+    if (sessions > 0)
+      server.printSummary();
+  }
+
+  /**
+   * Accepts agents and plays a session with each of them until the given number of sessions have been played.
+   *
+   * @param port port to listen on
+   * @param sessions number of sessions to play, 0 to keep accepting agents until the server is stopped
+   * @throws IOException if the server can not listen on port
+   */
+  public void serve(int port, int sessions) throws IOException {
+    ExecutorService executor = newSessionExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(port, 1024)) {
+      for (int id = 1; sessions == 0 || id <= sessions; ++id) {
+        Socket socket = serverSocket.accept();
+        final int sessionId = id;
+
+        executor.execute(() -> record(play(sessionId, socket)));
+      }
+    } finally {
+      executor.shutdown();
+      try {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Creates a memory mapped file, plays one session with the agent that maps it and deletes the file.
+   *
+   * @param fileName the file to share with the agent
+   * @throws IOException if the file can not be created
+   */
+  public void serveSharedMemory(String fileName) throws IOException {
+    try (SharedMemoryLink link = SharedMemoryLink.create(fileName)) {
+      link.getInput().setReadTimeout(moveTimeoutMs);
+      record(play(1, Channels.newInputStream(link.getInput()), Channels.newOutputStream(link.getOutput())));
+    } finally {
+      Files.deleteIfExists(Paths.get(fileName));
+    }
+  }
+
+  /**
+   * Adds the result of a session to the results and prints it unless silent.
+   */
+  private void record(SessionResult result) {
+    results.add(result);
+
+    if (!silent) {
+      System.out.printf("session %d: %s in %d moves (%.1f ms)%n", result.id, result.status, result.moves,
+        result.ms);
+    }
+  }
+
+  /**
+   * Plays one game with the agent connected to socket and closes the socket.
+   *
+   * @param id number of the session
+   * @param socket connection to the agent
+   * @return how the session ended
+   */
+  private SessionResult play(int id, Socket socket) {
+    try (Socket s = socket) {
+      s.setTcpNoDelay(true);
+      s.setSoTimeout(moveTimeoutMs);
+      return play(id, s.getInputStream(), s.getOutputStream());
+    } catch (IOException e) {
+      return new SessionResult(id, Status.DISCONNECTED, 0, 0, 0);
+    }
+  }
+
+  /**
+   * Plays one game with an agent, reading its actions from input and sending it views on out.
+   *
+   * @param id number of the session
+   * @param input stream the agent sends actions on, reads time out when the agent takes too long to answer
+   * @param out stream views are sent to the agent on
+   * @return how the session ended
+   */
+  private SessionResult play(int id, InputStream input, OutputStream out) {
+    long start = System.nanoTime();
+    Simulator simulator = new Simulator(template);
+    ViewCodec codec = new ViewCodec(ViewCodec.MODE_PLAIN);
+    byte[] frame = new byte[ViewCodec.MAX_FRAME_SIZE];
+    byte[] batch = new byte[Transport.MAX_BATCH];
+    byte[] batchFrame = new byte[1 + Transport.MAX_BATCH * ViewCodec.MAX_FRAME_SIZE];
+    Status status = Status.MAX_MOVES;
+    long bytesSent = 0;
+
+    try {
+      DataInputStream in = new DataInputStream(input);
+      boolean sendView = true;
+
+      while (simulator.getMoves() < maxMoves) {
+        if (sendView) {
+          int length = codec.encode(simulator.view(), frame, 0);
+          out.write(frame, 0, length);
+          out.flush();
+          bytesSent += length;
+        }
+
+        int action = in.read();
+        if (action < 0) {
+          status = Status.DISCONNECTED;
+          break;
+        }
+
+        if (action == (Transport.ENCODING_MARKER & 0xFF)) {
+          //Switch to the requested encoding if we know it and can pack the map, the agent then sends its action
+          int mode = in.readUnsignedByte();
+          if (!ViewCodec.isMode(mode) || !canPack)
+            mode = ViewCodec.MODE_PLAIN;
+
+          codec = new ViewCodec(mode);
+          out.write(mode);
+          out.flush();
+          ++bytesSent;
+
+          sendView = false;
+          continue;
+        }
+
+        Simulator.Outcome outcome;
+        if (action == (Transport.BATCH_MARKER & 0xFF)) {
+          int count = in.readUnsignedByte();
+          in.readFully(batch, 0, count);
+
+          //Apply the batch until an action has no effect, the agent planned the rest assuming it would
+          int applied = 0, length = 1;
+          outcome = simulator.getOutcome();
+          while (applied < count && simulator.getMoves() < maxMoves) {
+            outcome = simulator.step((char) batch[applied]);
+            length += codec.encode(simulator.view(), batchFrame, length);
+            ++applied;
+
+            if (outcome != Simulator.Outcome.PLAYING || !simulator.wasLastActionEffective())
+              break;
+          }
+
+          batchFrame[0] = (byte) applied;
+          out.write(batchFrame, 0, length);
+          out.flush();
+          bytesSent += length;
+
+          //The last view of the batch is the view the next action answers
+          sendView = false;
+        } else {
+          outcome = simulator.step((char) action);
+          sendView = true;
+        }
+
+        if (outcome == Simulator.Outcome.WON) {
+          status = Status.WON;
+          break;
+        } else if (outcome == Simulator.Outcome.LOST) {
+          status = Status.LOST;
+          break;
+        }
+      }
+    } catch (InterruptedIOException e) {
+      status = Status.TIMEOUT;
+    } catch (IOException e) {
+      status = Status.DISCONNECTED;
+    }
+
+    return new SessionResult(id, status, simulator.getMoves(), (System.nanoTime() - start) / 1e6, bytesSent);
+  }
+
+  /**
+   * Prints the number of sessions that ended each way, the view bytes sent per move and move and time statistics
+   * of the games won.
+   */
+  public void printSummary() {
+    List<SessionResult> finished = new ArrayList<>(results);
+    Map<Status, Integer> counts = new EnumMap<>(Status.class);
+    int wonCount = 0, minMoves = Integer.MAX_VALUE, maxMovesWon = 0;
+    long totalMoves = 0, allMoves = 0, allBytes = 0;
+    double totalMs = 0;
+
+    for (SessionResult result : finished) {
+      counts.merge(result.status, 1, Integer::sum);
+      allMoves += result.moves;
+      allBytes += result.bytesSent;
+
+      if (result.status == Status.WON) {
+        ++wonCount;
+        totalMoves += result.moves;
+        totalMs += result.ms;
+        minMoves = Math.min(minMoves, result.moves);
+        maxMovesWon = Math.max(maxMovesWon, result.moves);
+      }
+    }
+
+    System.out.println("sessions: " + finished.size());
+    for (Status status : Status.values())
+      System.out.println("  " + status + ": " + counts.getOrDefault(status, 0));
+
+    if (allMoves > 0)
+      System.out.printf(Locale.ROOT, "bytes sent per move: %.2f%n", (double) allBytes / allMoves);
+
+    if (wonCount > 0) {
+      System.out.printf(Locale.ROOT, "won games: moves mean %.1f min %d max %d, time mean %.1f ms%n",
+        (double) totalMoves / wonCount, minMoves, maxMovesWon, totalMs / wonCount);
+    }
+  }
+
+  /**
+   * @return an executor that starts a virtual thread per session if the JVM has them, otherwise a cached pool
+   */
+  private static ExecutorService newSessionExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+}
@@ -0,0 +1,256 @@
+import java.util.*;
+
+/**
+ * IndexedMinHeap class.
+ *
+ * A binary min-heap of int keys (typically packed coordinates) ordered by a long priority.
+ * The position of every key inside the heap is tracked so membership tests are O(1) and a key's priority
+ * can be lowered in place (decrease-key) in O(log n) rather than removing and re-adding it.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see <a href="https://en.wikipedia.org/wiki/Binary_heap">Wikipedia - Binary heap</a>
+ */
+public class IndexedMinHeap {
+  private static final int ABSENT = -1;
+
+  private final int[] heap;       //keys in heap order
+  private final long[] priority;  //priority of each key, only valid while the key is in the heap
+  private final int[] position;   //index of each key in heap or ABSENT
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity keys must lie in the range [0, capacity)
+   */
+  public IndexedMinHeap(int capacity) {
+    this.heap = new int[capacity];
+    this.priority = new long[capacity];
+    this.position = new int[capacity];
+    Arrays.fill(this.position, ABSENT);
+    this.size = 0;
+  }
+
+  /**
+   * @return true if the heap contains no keys
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return number of keys in the heap
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param key key to look for
+   * @return true if key is in the heap
+   */
+  public boolean contains(int key) {
+    return position[key] != ABSENT;
+  }
+
+  /**
+   * Adds key to the heap or, if it is already present, lowers its priority.
+   * A priority that is not lower than the current priority of a present key is ignored.
+   *
+   * @param key key to add or update
+   * @param newPriority priority of key
+   */
+  public void insertOrDecrease(int key, long newPriority) {
+    if (contains(key)) {
+      decreaseKey(key, newPriority);
+    } else {
+      insert(key, newPriority);
+    }
+  }
+
+  /**
+   * Adds key to the heap.
+   *
+   * @param key key to add
+   * @param newPriority priority of key
+   * @throws IllegalStateException if key is already in the heap
+   */
+  public void insert(int key, long newPriority) {
+    if (contains(key))
+      throw new IllegalStateException("key " + key + " is already in the heap");
+
+    heap[size] = key;
+    position[key] = size;
+    priority[key] = newPriority;
+    siftUp(size++);
+  }
+
+  /**
+   * Lowers the priority of a key already in the heap.
+   *
+   * @param key key to update
+   * @param newPriority new priority of key, ignored if it is not lower than the current priority
+   * @throws IllegalStateException if key is not in the heap
+   */
+  public void decreaseKey(int key, long newPriority) {
+    if (!contains(key))
+      throw new IllegalStateException("key " + key + " is not in the heap");
+
+    if (newPriority >= priority[key])
+      return;
+
+    priority[key] = newPriority;
+    siftUp(position[key]);
+  }
+
+  /**
+   * Changes the priority of a key already in the heap, moving it up or down as needed.
+   *
+   * @param key key to update
+   * @param newPriority new priority of key
+   * @throws IllegalStateException if key is not in the heap
+   */
+  public void update(int key, long newPriority) {
+    if (!contains(key))
+      throw new IllegalStateException("key " + key + " is not in the heap");
+
+    long oldPriority = priority[key];
+    priority[key] = newPriority;
+
+    if (newPriority < oldPriority)
+      siftUp(position[key]);
+    else
+      siftDown(position[key]);
+  }
+
+  /**
+   * Removes a key from the heap, if it is present.
+   *
+   * @param key key to remove
+   */
+  public void remove(int key) {
+    int i = position[key];
+    if (i == ABSENT)
+      return;
+
+    position[key] = ABSENT;
+
+    if (--size > i) {
+      int last = heap[size];
+      heap[i] = last;
+      position[last] = i;
+
+      //The moved key may belong above or below its new index
+      siftUp(i);
+      siftDown(position[last]);
+    }
+  }
+
+  /**
+   * @return key with the lowest priority, without removing it
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public int peek() {
+    if (size == 0)
+      throw new NoSuchElementException();
+
+    return heap[0];
+  }
+
+  /**
+   * @return the lowest priority in the heap
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public long peekPriority() {
+    return priority[peek()];
+  }
+
+  /**
+   * Removes and returns the key with the lowest priority.
+   *
+   * @return key with the lowest priority
+   * @throws NoSuchElementException if the heap is empty
+   */
+  public int poll() {
+    if (size == 0)
+      throw new NoSuchElementException();
+
+    int min = heap[0];
+    position[min] = ABSENT;
+
+    if (--size > 0) {
+      heap[0] = heap[size];
+      position[heap[0]] = 0;
+      siftDown(0);
+    }
+
+    return min;
+  }
+
+  /**
+   * Removes every key from the heap. Runs in time proportional to the number of keys in the heap.
+   */
+  public void clear() {
+    for (int i = 0; i < size; ++i)
+      position[heap[i]] = ABSENT;
+
+    size = 0;
+  }
+
+  /**
+   * Moves the key at index i up the heap until its parent has a lower or equal priority.
+   *
+   * @param i index in heap
+   */
+  private void siftUp(int i) {
+    int key = heap[i];
+    long keyPriority = priority[key];
+
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      int parentKey = heap[parent];
+
+      if (priority[parentKey] <= keyPriority)
+        break;
+
+      heap[i] = parentKey;
+      position[parentKey] = i;
+      i = parent;
+    }
+
+    heap[i] = key;
+    position[key] = i;
+  }
+
+  /**
+   * Moves the key at index i down the heap until both children have a higher or equal priority.
+   *
+   * @param i index in heap
+   */
+  private void siftDown(int i) {
+    int key = heap[i];
+    long keyPriority = priority[key];
+    int half = size >>> 1;
+
+    while (i < half) {
+      int child = 2 * i + 1;
+      int right = child + 1;
+
+      if (right < size && priority[heap[right]] < priority[heap[child]])
+        child = right;
+
+      int childKey = heap[child];
+
+      if (keyPriority <= priority[childKey])
+        break;
+
+      heap[i] = childKey;
+      position[childKey] = i;
+      i = child;
+    }
+
+    heap[i] = key;
+    position[key] = i;
+  }
+}
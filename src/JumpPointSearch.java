@@ -0,0 +1,296 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * JumpPointSearch class.
+ *
+ * Jump point search (JPS) for a 4-connected grid. It finds the same shortest path lengths as AStar but on open
+ * terrain, where AStar expands nearly every tile inside the Manhattan diamond because many equal cost paths tie,
+ * it only puts a few jump points on the open set.
+ *
+ * Of the equal cost paths only the canonical ones are searched: horizontal moves may turn vertical anywhere, but
+ * a vertical move only turns horizontal where it is forced to, that is when the tile beside the previous tile is
+ * blocked so the same turn could not have been made one tile earlier. A horizontal jump therefore scans vertically
+ * from every tile it passes (like a diagonal jump on an 8-connected grid) and stops at a tile whose vertical scans
+ * find a jump point, a vertical jump stops at the goal or a tile with a forced neighbour.
+ *
+ * Passability follows State#isTilePassable like AStar. Like AStar, an instance is a reusable workspace whose score
+ * arrays are stamped with a generation number.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see AStar
+ */
+public class JumpPointSearch implements PathFinder {
+  private final TileSource map;
+  private int start, goal;
+  private boolean hasKey, hasAxe;
+  private int[] cameFrom; //previous jump point
+  private int[] arrivalDirection; //direction of the jump that reached the jump point, NO_DIRECTION for start
+
+  private int[] gScore;
+
+  //Generation stamps, entries for a tile are only valid if its stamp equals the current generation
+  private int[] scoreGeneration;
+  private int[] closedGeneration;
+  private int generation;
+
+  //Results of the vertical jumps of the current search, indexed by UP or DOWN and the tile the jump starts from.
+  //Horizontal jumps scan the same columns again and again, so every tile a scan passes is given its result
+  private int[][] verticalJump;
+  private int[][] verticalJumpGeneration;
+  private int[] scannedTiles;
+
+  private IndexedMinHeap openSet; //ordered by fScore
+
+  private boolean searchCompleted;
+  private int nodesExpanded; //jump points taken off the open set by the last search
+
+  private static final int INFINITY_COST = 999999; //represents an infinite value
+  private static final int NO_DIRECTION = -1;
+
+  /**
+   * Constructor.
+   *
+   * @param map the map containing information about the environment
+   */
+  public JumpPointSearch(TileSource map) {
+    this.map = map;
+    this.start = this.goal = Coord.NONE;
+    this.cameFrom = new int[TileGrid.SIZE];
+    this.arrivalDirection = new int[TileGrid.SIZE];
+
+    this.gScore = new int[TileGrid.SIZE];
+
+    this.scoreGeneration = new int[TileGrid.SIZE];
+    this.closedGeneration = new int[TileGrid.SIZE];
+    this.generation = 0;
+
+    this.verticalJump = new int[2][TileGrid.SIZE];
+    this.verticalJumpGeneration = new int[2][TileGrid.SIZE];
+    this.scannedTiles = new int[TileGrid.SIZE];
+
+    this.openSet = new IndexedMinHeap(TileGrid.SIZE);
+
+    this.searchCompleted = false;
+    this.nodesExpanded = 0;
+  }
+
+  @Override
+  public void search(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    this.start = Coord.pack(start);
+    this.goal = Coord.pack(goal);
+    this.hasKey = hasKey;
+    this.hasAxe = hasAxe;
+
+    nextGeneration();
+    openSet.clear();
+
+    searchCompleted = true;
+    nodesExpanded = 0;
+
+    //Start or goal outside of the grid, there is no path
+    if (this.start == Coord.NONE || this.goal == Coord.NONE)
+      return;
+
+    setScores(this.start, 0, Coord.NONE, NO_DIRECTION);
+    openSet.insert(this.start, Coord.manhattan(this.start, this.goal));
+
+    while (!openSet.isEmpty()) {
+      int currentTile = openSet.poll();
+      ++nodesExpanded;
+
+      if (currentTile == this.goal)
+        return; //getPath() can now be called to reconstruct the path
+
+      closedGeneration[currentTile] = generation;
+
+      for (int direction : Coord.NEIGHBOUR_DIRECTIONS) {
+        if (!isSuccessorDirection(currentTile, direction))
+          continue;
+
+        int jumpPoint = jump(currentTile, direction);
+        if (jumpPoint == Coord.NONE || closedGeneration[jumpPoint] == generation)
+          continue;
+
+        //Jump points are on a straight line from currentTile, so the distance is exact
+        int tentative_gScore = gScore[currentTile] + Coord.manhattan(currentTile, jumpPoint);
+        if (tentative_gScore >= getGScore(jumpPoint))
+          continue; //this is not a better path
+
+        setScores(jumpPoint, tentative_gScore, currentTile, direction);
+        openSet.insertOrDecrease(jumpPoint, tentative_gScore + Coord.manhattan(jumpPoint, this.goal));
+      }
+    }
+
+    //At this point, failed to find a path and the search is over
+  }
+
+  /**
+   * Prunes the directions canonical paths through tile can continue in.
+   *
+   * @return true if a canonical path arriving at tile can continue in direction
+   */
+  private boolean isSuccessorDirection(int tile, int direction) {
+    int arrival = arrivalDirection[tile];
+
+    if (arrival == NO_DIRECTION)
+      return true; //the start continues in every direction
+
+    if (direction == opposite(arrival))
+      return false;
+
+    //Horizontal moves may continue or turn vertical anywhere, vertical moves may continue
+    if (isHorizontal(arrival) || direction == arrival)
+      return true;
+
+    //Vertical moves only turn horizontal if the tile beside the previous tile is blocked
+    return !isPassable(stepFrom(Coord.step(tile, opposite(arrival)), direction));
+  }
+
+  /**
+   * @return the next jump point from tile in direction or Coord.NONE if the jump runs into a blocked tile
+   */
+  private int jump(int tile, int direction) {
+    return isHorizontal(direction) ? jumpHorizontally(tile, direction) : jumpVertically(tile, direction);
+  }
+
+  private int jumpHorizontally(int tile, int direction) {
+    while (true) {
+      tile = stepFrom(tile, direction);
+
+      if (!isPassable(tile))
+        return Coord.NONE;
+
+      //Stop where a vertical scan finds something, the path turns here
+      if (tile == goal || jumpVertically(tile, State.UP) != Coord.NONE ||
+        jumpVertically(tile, State.DOWN) != Coord.NONE)
+        return tile;
+    }
+  }
+
+  private int jumpVertically(int tile, int direction) {
+    int[] jumps = verticalJump[direction / 2], jumpGeneration = verticalJumpGeneration[direction / 2];
+    int numScanned = 0, jumpPoint;
+
+    while (true) {
+      //The rest of this scan was done before
+      if (jumpGeneration[tile] == generation) {
+        jumpPoint = jumps[tile];
+        break;
+      }
+
+      scannedTiles[numScanned++] = tile;
+      int previous = tile;
+      tile = stepFrom(tile, direction);
+
+      if (!isPassable(tile)) {
+        jumpPoint = Coord.NONE;
+        break;
+      }
+
+      if (tile == goal || hasForcedNeighbour(tile, previous)) {
+        jumpPoint = tile;
+        break;
+      }
+    }
+
+    //Every tile passed reaches the same jump point
+    for (int i = 0; i < numScanned; ++i) {
+      jumps[scannedTiles[i]] = jumpPoint;
+      jumpGeneration[scannedTiles[i]] = generation;
+    }
+
+    return jumpPoint;
+  }
+
+  /**
+   * @return true if a tile beside tile could not be reached by turning one tile earlier, at previous
+   */
+  private boolean hasForcedNeighbour(int tile, int previous) {
+    for (int side = State.RIGHT; side <= State.LEFT; side += 2) {
+      if (isPassable(stepFrom(tile, side)) && !isPassable(stepFrom(previous, side)))
+        return true;
+    }
+
+    return false;
+  }
+
+  private boolean isPassable(int tile) {
+    return tile != Coord.NONE && State.isTilePassable(map.get(tile), hasKey, hasAxe);
+  }
+
+  /**
+   * @return Coord.step(tile, direction) or Coord.NONE if tile is Coord.NONE
+   */
+  private static int stepFrom(int tile, int direction) {
+    return (tile == Coord.NONE) ? Coord.NONE : Coord.step(tile, direction);
+  }
+
+  private static boolean isHorizontal(int direction) {
+    return direction == State.RIGHT || direction == State.LEFT;
+  }
+
+  private static int opposite(int direction) {
+    return (direction + 2) % 4;
+  }
+
+  @Override
+  public int getNodesExpanded() {
+    return nodesExpanded;
+  }
+
+  /**
+   * Starts a new generation which invalidates the scores and closed set of the previous search.
+   * Stamps are only cleared when the generation counter wraps around.
+   */
+  private void nextGeneration() {
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(scoreGeneration, 0);
+      Arrays.fill(closedGeneration, 0);
+      Arrays.fill(verticalJumpGeneration[0], 0);
+      Arrays.fill(verticalJumpGeneration[1], 0);
+      generation = 1;
+    }
+  }
+
+  private int getGScore(int tile) {
+    return (scoreGeneration[tile] == generation) ? gScore[tile] : INFINITY_COST;
+  }
+
+  private void setScores(int tile, int g, int parent, int direction) {
+    scoreGeneration[tile] = generation;
+    gScore[tile] = g;
+    cameFrom[tile] = parent;
+    arrivalDirection[tile] = direction;
+  }
+
+  /**
+   * Returns minimum path from start to goal as determined in search() or empty linked list if no path was found.
+   * The tiles between consecutive jump points are filled in, so the path holds every tile like AStar.getPath().
+   *
+   * @return LinkedList of adjacent Point2D.Double objects that form a path from goal to start (excluding start
+   *         point). Otherwise, empty LinkedList meaning no path was found.
+   * @throws IllegalStateException if search() is not called before this method is called
+   */
+  @Override
+  public LinkedList<Point2D.Double> getPath() {
+    if (!searchCompleted)
+      throw new IllegalStateException("search() has not been called yet");
+
+    LinkedList<Point2D.Double> sequence = new LinkedList<>();
+
+    //Goal was never reached in the last search
+    if (goal == Coord.NONE || scoreGeneration[goal] != generation)
+      return sequence;
+
+    for (int u = goal; cameFrom[u] != Coord.NONE; u = cameFrom[u]) {
+      int back = opposite(arrivalDirection[u]);
+
+      for (int tile = u; tile != cameFrom[u]; tile = Coord.step(tile, back))
+        sequence.add(Coord.toPoint(tile));
+    }
+
+    return sequence;
+  }
+}
@@ -1,5 +1,7 @@
 import java.awt.geom.Point2D;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
 
 /**
  * MoveMaker class.
@@ -13,14 +15,79 @@ import java.util.*;
 public class MoveMaker {
   private State state;
   private Queue<Character> pendingMoves;
+  private TileOverlay planningMap; //internal map plus any hypothetical tiles used while planning
+  private PathFinder pathFinder; //reused for every path we plan
+  private int pathFinderKind; //kind of search pathFinder is recorded as in the metrics
+  private FrontierSearch frontierSearch; //reused for every exploration step
+  private CrossingPlanner crossingPlanner; //reused for every stepping stone plan
+  private DStarLite routePlanner; //incremental planner for the route to the gold
+
+  //Tiles of the route the pending moves follow, a tile is still ahead of us while its stamp equals routeId
+  private int[] routeStamp;
+  private int routeId;
+  private boolean routeHasKey, routeHasAxe; //inventory the route was planned with
+  private boolean routeBlocked; //set when a tile ahead on the route became impassable
+
+  //Parallel evaluation of stepping stone candidate goals, pool is null when evaluation is sequential
+  private ForkJoinPool pool;
+  private TileGrid snapshot; //copy of the internal map which stays unchanged while candidates are evaluated
+  private ThreadLocal<CrossingPlanner> snapshotPlanners;
 
   private boolean needKey;
   private boolean needAxe;
   private boolean needSS;
 
+  private char lastMove; //move last passed to commitMove
+
+  private final DecisionMetrics metrics;
+
   public MoveMaker() {
+    this(1);
+  }
+
+  public MoveMaker(int parallelism) {
+    this(parallelism, new DecisionMetrics(false));
+  }
+
+  public MoveMaker(int parallelism, DecisionMetrics metrics) {
+    this(parallelism, metrics, PathFinder.ASTAR);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param parallelism number of threads used to evaluate stepping stone candidate goals, 1 or less evaluates them
+   *                    sequentially on the calling thread
+   * @param metrics records what each stage of makeMove does (may be disabled)
+   * @param pathFinderName path finder used for the paths that are not planned incrementally (PathFinder.ASTAR or
+   *                       PathFinder.JUMP_POINT_SEARCH)
+   * @throws IllegalArgumentException if there is no path finder named pathFinderName
+   */
+  public MoveMaker(int parallelism, DecisionMetrics metrics, String pathFinderName) {
+    this.metrics = metrics;
     this.state = new State();
     this.pendingMoves = new LinkedList<>();
+    this.planningMap = new TileOverlay(state.getMap());
+    this.pathFinder = PathFinder.create(pathFinderName, planningMap);
+    if (pathFinder == null)
+      throw new IllegalArgumentException("unknown path finder " + pathFinderName);
+    this.pathFinderKind = (pathFinder instanceof JumpPointSearch) ? DecisionMetrics.JUMP_POINT_SEARCH
+      : DecisionMetrics.ASTAR;
+    this.frontierSearch = new FrontierSearch(state.getMap());
+    this.crossingPlanner = new CrossingPlanner(state.getMap());
+    this.routePlanner = new DStarLite(state.getMap());
+    state.addTileChangeListener(routePlanner);
+
+    this.routeStamp = new int[TileGrid.SIZE];
+    this.routeId = 0;
+    this.routeBlocked = false;
+    state.addTileChangeListener(this::onRouteTileChanged);
+
+    if (parallelism > 1) {
+      this.pool = new ForkJoinPool(parallelism);
+      this.snapshot = new TileGrid(State.OBSTACLE_UNKNOWN);
+      this.snapshotPlanners = ThreadLocal.withInitial(() -> new CrossingPlanner(snapshot));
+    }
 
     this.needKey = false;
     this.needAxe = false;
@@ -33,46 +100,51 @@ public class MoveMaker {
    * @return a valid move (as a character) corresponding to next move the player will make
    */
   public char makeMove(char view[][]) {
+    metrics.beginMove();
+
     //First update our state view
     state.updateFromView(view);
+    dropBlockedRoute();
 
     //Stage 1
     //If we have no pending moves, then we must decide what to do
     while (pendingMoves.isEmpty()) {
 
       //Stage 2: Do we have gold
-      //Yes: Do A* traversal to starting location, aka (0,0)
+      metrics.enterStage(2);
+      //Yes: Walk down the distances to starting location, aka (0,0)
       if (state.haveGold()) {
-        addAStarPathToPendingMoves(state.getPlayerLocation(),
-          new Point2D.Double(0, 0), state.getDirection(), state.haveKey(), state.haveAxe());
+        addHomePathToPendingMoves();
         break;
       }
 
       //Stage 3: Do we see gold?
+      metrics.enterStage(3);
       if (state.isGoldVisible()) {
         //Yes: Can we reach the gold? (from our current position with current inventory)
-        FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), state.getGoldLocation());
-        if (ff.isReachable(state.haveKey(), state.haveAxe())) {
-          //Yes: Do A* traversal to gold
-          addAStarPathToPendingMoves(state.getPlayerLocation(), state.getGoldLocation(), state.getDirection(), state.haveKey(), state.haveAxe());
+        Point2D.Double player = state.getPlayerLocation();
+        Point2D.Double gold = state.getGoldLocation();
+        if (isReachable(player, gold, state.haveKey(), state.haveAxe())) {
+          //Yes: Plan the route to gold
+          addPlannedPathToPendingMoves(state.getPlayerLocation(), state.getGoldLocation(), state.getDirection(), state.haveKey(), state.haveAxe());
           break;
         } else {
           //Now we do some theoretical reachability tests
           //If we don't have the key, see if we can reach gold with a key
           if (!state.haveKey()) {
-            if (ff.isReachable(true, state.haveAxe()))
+            if (isReachable(player, gold, true, state.haveAxe()))
               needKey = true;
           }
 
           //If we don't have the axe, see if we can reach gold with a axe
           if (!state.haveAxe()) {
-            if (ff.isReachable(state.haveKey(), true))
+            if (isReachable(player, gold, state.haveKey(), true))
               needAxe = true;
           }
 
           //If we don't have a key or axe, see if its possible to reach with both
           if (!state.haveKey() && !state.haveAxe()) {
-            if (ff.isReachable(true, true)) {
+            if (isReachable(player, gold, true, true)) {
               needKey = true;
               needAxe = true;
             }
@@ -81,19 +153,19 @@ public class MoveMaker {
       }
 
       //Stage 4: Do we know location of a needed resources?
+      metrics.enterStage(4);
       if (needKey && !state.getKeyLocations().isEmpty()) {
         //Yes: Check if reachable with current inventory and traverse to it if so
         boolean isKeyAttainable = false;
 
         for (Point2D.Double location : state.getKeyLocations()) {
           //Sanity check
-          if (state.getMap().get(location) == null || state.getMap().get(location) != State.TOOL_KEY) {
+          if (state.getMap().get(location) != State.TOOL_KEY) {
             continue;
           }
 
           //Is this location reachable?
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             //Do A* traversal to location
             addAStarPathToPendingMoves(state.getPlayerLocation(), location, state.getDirection(), state.haveKey(), state.haveAxe());
             isKeyAttainable = true;
@@ -112,13 +184,12 @@ public class MoveMaker {
 
         for (Point2D.Double location : state.getAxeLocations()) {
           //Sanity check
-          if (state.getMap().get(location) == null || state.getMap().get(location) != State.TOOL_AXE) {
+          if (state.getMap().get(location) != State.TOOL_AXE) {
             continue;
           }
 
           //Is this location reachable?
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             //Do A* traversal to location
             addAStarPathToPendingMoves(state.getPlayerLocation(), location, state.getDirection(), state.haveKey(), state.haveAxe());
             isAxeAttainable = true;
@@ -136,13 +207,12 @@ public class MoveMaker {
 
         for (Point2D.Double location : state.getSSLocations()) {
           //Sanity check
-          if (state.getMap().get(location) == null || state.getMap().get(location) != State.TOOL_STEPPING_STONE) {
+          if (state.getMap().get(location) != State.TOOL_STEPPING_STONE) {
             continue;
           }
 
           //Is this location reachable?
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             //Do A* traversal to location
             addAStarPathToPendingMoves(state.getPlayerLocation(), location, state.getDirection(), state.haveKey(), state.haveAxe());
             isSSAttainable = true;
@@ -156,9 +226,12 @@ public class MoveMaker {
       }
 
       //Stage 5: Explore to reveal unknown blocks
-      SpiralSeek s = new SpiralSeek(state.getMap(), state.getPlayerLocation());
-      Point2D.Double explorationDestination = s.getTile(state.haveKey(), state.haveAxe());
-      //If the spiral seek algorithm successfully found a destination, it is guaranteed to be passable/reachable
+      metrics.enterStage(5);
+      long searchStart = metrics.startSearch();
+      Point2D.Double explorationDestination = frontierSearch.getTile(state.getPlayerLocation(), state.haveKey(),
+        state.haveAxe());
+      metrics.endSearch(DecisionMetrics.FRONTIER_SEARCH, searchStart, frontierSearch.getNodesVisited());
+      //If the frontier search successfully found a destination, it is guaranteed to be passable/reachable
       if (!explorationDestination.equals(state.getPlayerLocation())) {
         //Do A* traversal to exploration destination
         addAStarPathToPendingMoves(state.getPlayerLocation(), explorationDestination, state.getDirection(), state.haveKey(), state.haveAxe());
@@ -166,13 +239,13 @@ public class MoveMaker {
       }
 
       //Stage 6: Cannot explore any further, is there a reachable axe or tool we can pick up to perhaps help us explore more
+      metrics.enterStage(6);
       boolean canGetResource = false;
 
       if (!needKey && !state.haveKey() && !state.getKeyLocations().isEmpty()) {
         //Ensure at least one is reachable
         for (Point2D.Double location : state.getKeyLocations()) {
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             needKey = true;
             canGetResource = true;
             break;
@@ -183,8 +256,7 @@ public class MoveMaker {
       if (!needAxe && !state.haveAxe() && !state.getAxeLocations().isEmpty()) {
         //Ensure at least one is reachable
         for (Point2D.Double location : state.getAxeLocations()) {
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             needAxe = true;
             canGetResource = true;
             break;
@@ -195,8 +267,7 @@ public class MoveMaker {
       if (!state.getSSLocations().isEmpty()) {
         //Ensure at least one is reachable
         for (Point2D.Double location : state.getSSLocations()) {
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (ff.isReachable(state.haveKey(), state.haveAxe())) {
+          if (isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe())) {
             needSS = true;
             canGetResource = true;
             break;
@@ -209,83 +280,46 @@ public class MoveMaker {
         continue;
 
       //Stage 7: Need to use our stepping stones to get to a new unreachable area
+      metrics.enterStage(7);
       //Note at this stage we have all resources that are reachable to us
       //So any tools we still see on the map are guaranteed to be unreachable (without using stepping stones)
 
-      //Try to get to the area near gold
-      if (state.isGoldVisible()) {
-        if (useSteppingStoneTowardsGoal(state.getGoldLocation()))
-          break;
-      }
+      //Candidate goals in order of preference, we try to get to the area near (in order):
+      //the gold, another stepping stone, another key (don't prefer if we already have key),
+      //another axe (don't prefer if we already have axe) and finally another space
+      List<Point2D.Double> candidateGoals = new ArrayList<>();
 
-      //Try to get to the area near another stepping stone
-      if (!state.getSSLocations().isEmpty()) {
-        boolean canGetToNewArea = false;
-        for (Point2D.Double location : state.getSSLocations()) {
-          if (useSteppingStoneTowardsGoal(location)) {
-            canGetToNewArea = true;
-            break;
-          }
-        }
-
-        if (canGetToNewArea)
-          break;
-      }
+      if (state.isGoldVisible())
+        candidateGoals.add(state.getGoldLocation());
 
-      //Try to get to the area near another key (don't prefer if we already have key)
-      if (!state.getKeyLocations().isEmpty() && !state.haveKey()) {
-        boolean canGetToNewArea = false;
-        for (Point2D.Double location : state.getKeyLocations()) {
-          if (useSteppingStoneTowardsGoal(location)) {
-            canGetToNewArea = true;
-            break;
-          }
-        }
+      candidateGoals.addAll(state.getSSLocations());
 
-        if (canGetToNewArea)
-          break;
-      }
+      if (!state.haveKey())
+        candidateGoals.addAll(state.getKeyLocations());
 
-      //Try to get to the area near another axe (don't prefer if we already have axe)
-      if (!state.getAxeLocations().isEmpty() && !state.haveAxe()) {
-        boolean canGetToNewArea = false;
-        for (Point2D.Double location : state.getAxeLocations()) {
-          if (useSteppingStoneTowardsGoal(location)) {
-            canGetToNewArea = true;
-            break;
-          }
-        }
+      if (!state.haveAxe())
+        candidateGoals.addAll(state.getAxeLocations());
 
-        if (canGetToNewArea)
-          break;
+      for (Point2D.Double location : state.getSpaceLocations()) {
+        //Ensure this blank space is not reachable from our current player location
+        if (!isReachable(state.getPlayerLocation(), location, state.haveKey(), state.haveAxe()))
+          candidateGoals.add(location);
       }
 
-      //Try to get to the area near another space
-      if (!state.getSpaceLocations().isEmpty()) {
-        boolean canGetToNewArea = false;
-        for (Point2D.Double location : state.getSpaceLocations()) {
-          //Ensure this blank space is not reachable from our current player location
-          FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), location);
-          if (!ff.isReachable(state.haveKey(), state.haveAxe())) {
-            if (useSteppingStoneTowardsGoal(location)) {
-              canGetToNewArea = true;
-              break;
-            }
-          }
-        }
-
-        if (canGetToNewArea)
-          break;
-      }
+      Point2D.Double crossingGoal = getFirstCrossableGoal(candidateGoals);
+      if (crossingGoal != null && useSteppingStoneTowardsGoal(crossingGoal))
+        break;
 
       //Stage 8: Disaster stage
+      metrics.enterStage(8);
       //Okay we really should never get here unless there is no solution possible or something odd happens
-      //If we do though, lets A* to (0,0) home and hope we can recover
-      addAStarPathToPendingMoves(state.getPlayerLocation(), new Point2D.Double(0, 0),
-        state.getDirection(), state.haveKey(), state.haveAxe());
+      //If we do though, lets go to (0,0) home and hope we can recover
+      addHomePathToPendingMoves();
       break;
     }
 
+    metrics.endDecision();
+
     //Stage 1: If we reach this stage, we already had pending moves
     //Or decisions have been made above which added pending moves for us
     //Lets complete the pending moves
@@ -294,40 +328,164 @@ public class MoveMaker {
       char moveToMake = pendingMoves.remove();
       char nextTile = state.getMap().get(state.getTileInFront(state.getPlayerLocation()));
 
-      if (moveToMake == State.MOVE_GOFORWARD) {
-        //If we happen to be finding a key/axe
-        if (nextTile == State.TOOL_AXE) {
-          needAxe = false; //no longer need axes for rest of game
-        }
-        else if (nextTile == State.TOOL_KEY) {
-          needKey = false; //no longer need keys for rest of game
-        }
-        //Failsafe mechanism
-        //Should never happen but here just in case
-        else if ((nextTile == State.OBSTACLE_WATER && state.getNumSteppingStones() == 0) ||
-          (nextTile == State.OBSTACLE_BOUNDARY)){
-          //This move results in certain death, aka game over
-          //So lets just do an unlock door move instead
-          //Which will simply act as a NOP (no operation)
-          //Hopefully then we can recover and continue making useful moves
-          moveToMake = State.MOVE_UNLOCKDOOR;
-        }
+      //Failsafe mechanism
+      //Should never happen but here just in case
+      if (moveToMake == State.MOVE_GOFORWARD && ((nextTile == State.OBSTACLE_WATER && state.getNumSteppingStones() == 0) ||
+        (nextTile == State.OBSTACLE_BOUNDARY))) {
+        //This move results in certain death, aka game over
+        //So lets just do an unlock door move instead
+        //Which will simply act as a NOP (no operation)
+        //Hopefully then we can recover and continue making useful moves
+        moveToMake = State.MOVE_UNLOCKDOOR;
       }
 
-      state.updateFromMove(moveToMake);
+      commitMove(moveToMake);
 
+      metrics.endMove();
       return moveToMake;
     }
 
-    return 0;
+    //No decision could be made, do an unlock door move which acts as a NOP (like the failsafe above)
+    //Never return anything the game engine could mistake for something other than an action
+    commitMove(State.MOVE_UNLOCKDOOR);
+
+    metrics.endMove();
+    return State.MOVE_UNLOCKDOOR;
+  }
+
+  /**
+   * Copies the moves queued after the move last returned by makeMove, without removing them. The agent sends them
+   * ahead to the game engine when batching moves and then replays the views it gets back with replayMove.
+   *
+   * Copying stops at the first move the failsafe of makeMove would replace (a forward move into water without a
+   * stepping stone or into the boundary), found by following the player location, direction and stones held
+   * along the queue. That move is only made, or replaced, once makeMove gets to it.
+   *
+   * @param moves array to copy the moves into
+   * @param offset index of moves to copy the first queued move to
+   * @return number of moves copied, at most moves.length - offset
+   */
+  public int getPendingMoves(char[] moves, int offset) {
+    int count = offset;
+    int location = Coord.pack(state.getPlayerLocation());
+    int direction = state.getDirection();
+    int stones = state.getNumSteppingStones();
+    //Tree or door in front that a C or U removes, the map only shows it removed once the next view is seen
+    int cleared = Coord.step(location, direction);
+    char clearedTile = (cleared == Coord.NONE) ? State.OBSTACLE_BOUNDARY : state.getMap().get(cleared);
+    boolean lastMoveClears = (lastMove == State.MOVE_CHOPTREE && clearedTile == State.OBSTACLE_TREE) ||
+      (lastMove == State.MOVE_UNLOCKDOOR && clearedTile == State.OBSTACLE_DOOR);
+    if (!lastMoveClears)
+      cleared = Coord.NONE;
+
+    for (Iterator<Character> it = pendingMoves.iterator(); it.hasNext() && count < moves.length; ) {
+      char move = it.next();
+      int front = Coord.step(location, direction);
+      char nextTile = (front == Coord.NONE) ? State.OBSTACLE_BOUNDARY :
+        (front == cleared) ? State.OBSTACLE_SPACE : state.getMap().get(front);
+
+      if (move == State.MOVE_GOFORWARD) {
+        if ((nextTile == State.OBSTACLE_WATER && stones == 0) || nextTile == State.OBSTACLE_BOUNDARY)
+          break;
+
+        //Forward moves against walls, doors and trees are NOPs
+        if (nextTile != State.OBSTACLE_WALL && nextTile != State.OBSTACLE_DOOR && nextTile != State.OBSTACLE_TREE) {
+          if (nextTile == State.OBSTACLE_WATER)
+            --stones;
+          else if (nextTile == State.TOOL_STEPPING_STONE)
+            ++stones;
+
+          location = front;
+        }
+      } else if (move == State.MOVE_TURNLEFT) {
+        direction = (direction + 3) % 4;
+      } else if (move == State.MOVE_TURNRIGHT) {
+        direction = (direction + 1) % 4;
+      } else if (nextTile == State.OBSTACLE_TREE || nextTile == State.OBSTACLE_DOOR) {
+        cleared = front;
+      }
+
+      moves[count++] = move;
+    }
+
+    return count - offset;
+  }
+
+  /**
+   * Updates the state from a view and records move as made from it, without deciding anything. Used for the views
+   * returned by the game engine for a batch of moves that were sent ahead (see getPendingMoves). If move is not
+   * the next queued move the queued moves are dropped, they were planned for a different sequence of moves.
+   *
+   * @param view the view before move was made
+   * @param move the move the game engine made
+   */
+  public void replayMove(char view[][], char move) {
+    metrics.beginMove();
+
+    state.updateFromView(view);
+    dropBlockedRoute();
+
+    if (!pendingMoves.isEmpty() && pendingMoves.peek() == move)
+      pendingMoves.remove();
+    else
+      pendingMoves.clear();
+
+    metrics.endDecision();
+    commitMove(move);
+    metrics.endMove();
   }
 
   /**
-   * Utilises the AStar class to perform an A* algorithm on the current map to get from start to goal
-   * given the current direction and inventory.
+   * Updates the state and the resources we still need for a move that is being made.
    *
-   * Then gathers the path and adjusts it to create a list of moves that the player can take to reach
-   * the goal. This list of moves is then added to the pendingMoves queue.
+   * @param move the move being made
+   */
+  private void commitMove(char move) {
+    lastMove = move;
+
+    if (move == State.MOVE_GOFORWARD) {
+      char nextTile = state.getMap().get(state.getTileInFront(state.getPlayerLocation()));
+
+      //If we happen to be finding a key/axe
+      if (nextTile == State.TOOL_AXE) {
+        needAxe = false; //no longer need axes for rest of game
+      }
+      else if (nextTile == State.TOOL_KEY) {
+        needKey = false; //no longer need keys for rest of game
+      }
+    }
+
+    state.updateFromMove(move);
+
+    //Tiles we entered are no longer ahead of us on the route
+    routeStamp[Coord.pack(state.getPlayerLocation())] = 0;
+  }
+
+  /**
+   * Marks the route blocked if a tile still ahead on it became impassable for the inventory it was planned with.
+   */
+  private void onRouteTileChanged(int p, char oldTile, char newTile) {
+    if (routeStamp[p] == routeId && !State.isTilePassable(newTile, routeHasKey, routeHasAxe))
+      routeBlocked = true;
+  }
+
+  /**
+   * Drops the pending moves if the route they follow was blocked by the last view, so a new route is decided on.
+   * Routes to the same goal are then repaired by the routePlanner instead of being searched again.
+   */
+  private void dropBlockedRoute() {
+    if (!routeBlocked)
+      return;
+
+    pendingMoves.clear();
+    routeBlocked = false;
+    ++routeId;
+  }
+
+  /**
+   * Utilises the pathFinder (the AStar class unless another path finder was selected) to find a shortest path
+   * on the current map to get from start to goal given the current direction and inventory, then adds the moves
+   * along the path to the pendingMoves queue.
    *
    * Precondition: This method assumes that goal is reachable from start. Only call this method if a
    * successful reachability test has been completed from start to goal given the map, current direction
@@ -338,15 +496,80 @@ public class MoveMaker {
    * @param curDirection  the direction player is facing
    * @param hasKey  if the player has the key
    * @param hasAxe  if te player has the axe
+   * @see MoveMaker#addPathToPendingMoves(LinkedList, Point2D.Double, int, boolean, boolean)
    */
   private void addAStarPathToPendingMoves(Point2D.Double start, Point2D.Double goal, int curDirection,
                                           boolean hasKey, boolean hasAxe) {
-    //New AStar search
-    AStar a = new AStar(state.getMap(), start, goal);
-    a.search(hasKey, hasAxe);
+    //New path search
+    long searchStart = metrics.startSearch();
+    pathFinder.search(start, goal, hasKey, hasAxe);
+    metrics.endSearch(pathFinderKind, searchStart, pathFinder.getNodesExpanded());
+
+    addPathToPendingMoves(pathFinder.getPath(), start, curDirection, hasKey, hasAxe);
+  }
+
+  /**
+   * Same as addAStarPathToPendingMoves but plans with the routePlanner, which repairs its previous search tree when
+   * the goal and inventory did not change. Used for the route to the gold, which is planned again whenever
+   * exploration on the way reveals a better route or blocks the current one.
+   *
+   * @param start the starting point (typically the current player position)
+   * @param goal the goal point (destination player is attempting to reach)
+   * @param curDirection  the direction player is facing
+   * @param hasKey  if the player has the key
+   * @param hasAxe  if te player has the axe
+   * @see DStarLite
+   */
+  private void addPlannedPathToPendingMoves(Point2D.Double start, Point2D.Double goal, int curDirection,
+                                            boolean hasKey, boolean hasAxe) {
+    long searchStart = metrics.startSearch();
+    routePlanner.plan(start, goal, hasKey, hasAxe);
+    metrics.endSearch(DecisionMetrics.D_STAR_LITE, searchStart, routePlanner.getNodesExpanded());
+
+    addPathToPendingMoves(routePlanner.getPath(), start, curDirection, hasKey, hasAxe);
+  }
+
+  /**
+   * Adds the moves along a shortest path from the player to (0,0) home to the pendingMoves queue. The path is read
+   * off the distances to the origin that State keeps up to date, so no search is made even though this is the
+   * longest path of a game.
+   *
+   * @see State#getPathHome()
+   */
+  private void addHomePathToPendingMoves() {
+    long searchStart = metrics.startSearch();
+    LinkedList<Point2D.Double> path = state.getPathHome();
+    metrics.endSearch(DecisionMetrics.HOME_DISTANCE_FIELD, searchStart, path.size());
+
+    addPathToPendingMoves(path, state.getPlayerLocation(), state.getDirection(), state.haveKey(), state.haveAxe());
+  }
+
+  /**
+   * Adjusts a path to create a list of moves that the player can take to reach the goal. This list of moves is
+   * then added to the pendingMoves queue.
+   *
+   * Unless the path crosses hypothetical tiles of the planning overlay, its tiles are remembered as the route so
+   * the moves can be dropped when a later view shows one of them is blocked.
+   *
+   * @param path path from goal to start (excluding start), as returned by PathFinder#getPath
+   * @param start the starting point (typically the current player position)
+   * @param curDirection  the direction player is facing
+   * @param hasKey  if the player has the key
+   * @param hasAxe  if te player has the axe
+   */
+  private void addPathToPendingMoves(LinkedList<Point2D.Double> path, Point2D.Double start, int curDirection,
+                                     boolean hasKey, boolean hasAxe) {
+    //Start a new route, tiles of earlier routes are no longer ahead of us
+    ++routeId;
+    routeBlocked = false;
+    routeHasKey = hasKey;
+    routeHasAxe = hasAxe;
+
+    if (planningMap.size() == 0) {
+      for (Point2D.Double element : path)
+        routeStamp[Coord.pack(element)] = routeId;
+    }
 
-    //Get optimal path
-    LinkedList<Point2D.Double> path = a.getPath();
     path.addLast(start); //add starting position to end of path (before reversal)
 
     //Iterate through moves in reverse so they are presented as moves from start -> goal
@@ -382,121 +605,151 @@ public class MoveMaker {
 
 
   /**
-   * Given an unreachable destination goal, creates all possible combinations of waters of increasing depth
-   * starting from n = 1, n = 2...etc until n = num_stones_held. Then all combinations where water tiles are not
-   * adjacent (touching) are eliminated as they will never allow you to reach a new previously unreachable area
-   * (ie they are impossible solutions).
+   * Given an unreachable destination goal, uses the CrossingPlanner to find the water tiles that stepping stones
+   * should be placed on to reach goal. The plan uses as few of our stepping stones as possible.
+   *
+   * When several plans use the same number of stones, the water tiles are picked based on the effectiveness of the
+   * move rather than at random. Plans with stones close to the gold are preferred if one of the stones lines up with
+   * the gold (same X or Y) as it will eventually lead to the gold. Otherwise, stones closest to other stepping stones
+   * are preferred, then stones closest to keys and finally stones closest to axes.
    *
-   * Finally, a reachability test is completed for each group to ensure new area is reachable if stepping stones
-   * are placed over water in the group. If new area is reachable, an A* traversal is completed using
-   * addAStarPathToPendingMoves.
+   * If a plan is found, the water tiles in the plan are marked as temporary water (so they are passable) on the
+   * planning overlay and an A* traversal is completed using addAStarPathToPendingMoves. The internal map itself is
+   * never modified, the stones appear on it once the moves are made and the views show them.
    *
    * @param goal unreachable destination goal
    * @return true if goal is reachable if stepping stones are used on various water tiles
    *              (moves also added via addAStarPathToPendingMoves as side effect), false otherwise
+   * @see CrossingPlanner
    * @see MoveMaker#addAStarPathToPendingMoves(Point2D.Double, Point2D.Double, int, boolean, boolean)
    */
   private boolean useSteppingStoneTowardsGoal(Point2D.Double goal) {
-    boolean moveMade = false;
-    List<Point2D.Double[]> solutionGroup = new ArrayList<>(); //stores all possible solutions
+    List<Point2D.Double> interestPoints = new ArrayList<>();
+    if (state.isGoldVisible())
+      interestPoints.add(state.getGoldLocation());
 
-    for (int i = 1; i <= state.getNumSteppingStones() && !moveMade; ++i) {
-      List<Point2D.Double[]> combinationList = new ArrayList<>();
-      Point2D.Double[] arr = state.getWaterLocations().toArray(new Point2D.Double[state.getWaterLocations().size()]);
-      getAdjacentcombinations(i, arr, combinationList); //get combinations
+    if (!planCrossing(goal, interestPoints))
+      return false;
 
-      for (Point2D.Double[] group : combinationList) {
+    LinkedList<Point2D.Double> waterTiles = crossingPlanner.getWaterTiles();
 
-        //Replace every waterTile with a temporary water block for now
-        for (Point2D.Double waterTile : group) {
-          state.getMap().put(waterTile, State.OBSTACLE_TEMPORARY_WATER);
-        }
-
-        //Perform a reachability test to the goal
-        FloodFill ff = new FloodFill(state.getMap(), state.getPlayerLocation(), goal);
-        if (ff.isReachable(state.haveKey(), state.haveAxe())) {
-          //Add to solution group
-          solutionGroup.add(group);
-          moveMade = true;
-        }
-
-        //Restore stepping stones with original water
-        for (Point2D.Double waterTile : group) {
-          state.getMap().put(waterTile, State.OBSTACLE_WATER);
-        }
+    //Check to see if this solution will eventually lead to gold
+    boolean leadsToGold = false;
+    if (state.isGoldVisible()) {
+      for (Point2D.Double waterTile : waterTiles) {
+        if (waterTile.getX() == state.getGoldLocation().getX() || waterTile.getY() == state.getGoldLocation().getY())
+          leadsToGold = true;
       }
     }
 
-    //Check for best solution based on distance to gold
-    if (!solutionGroup.isEmpty()) {
-      int selectedIndex = 0; //initially pick first solution (default)
+    //A solution that leads to gold is not possible
+    //Lets find a solution that leads to stepping stones, then keys, then axes
+    if (!leadsToGold) {
+      if (!state.getSSLocations().isEmpty()) {
+        interestPoints = state.getSSLocations();
+      } else if (!state.getKeyLocations().isEmpty()) {
+        interestPoints = state.getKeyLocations();
+      } else {
+        interestPoints = state.getAxeLocations();
+      }
 
-      List<Point2D.Double[]> goldSolutions = new ArrayList<>();
+      //Same number of stones are needed so a plan is still guaranteed to be found
+      if (!interestPoints.isEmpty() && planCrossing(goal, interestPoints))
+        waterTiles = crossingPlanner.getWaterTiles();
+    }
 
-      //Check to see if we can pick a solution that will get us closer to gold
-      if (state.isGoldVisible()) {
-        int minCost = 999999; //represents infinity
-
-        for (int i = 0; i < solutionGroup.size(); ++i) {
-          Point2D.Double[] group = solutionGroup.get(i);
-          int groupCost = 0;
-
-          //Pick solution closest to gold
-          for (Point2D.Double solution : group) {
-            //Manhattan distance to gold
-            groupCost += (Math.abs((int) solution.getX() - (int) state.getGoldLocation().getX()) +
-              Math.abs((int) solution.getY() - (int) state.getGoldLocation().getY()));
-
-            //If this solution has same X/Y as gold then its a solution that will eventually lead to gold!
-            if (solution.getX() == state.getGoldLocation().getX() || solution.getY() == state.getGoldLocation().getY()) {
-              if (!goldSolutions.contains(group))
-                goldSolutions.add(group);
-            }
-          }
+    //Replace every waterTile in the plan with a temporary water block
+    for (Point2D.Double waterTile : waterTiles) {
+      planningMap.set(waterTile, State.OBSTACLE_TEMPORARY_WATER);
+    }
 
-          if (groupCost < minCost) {
-            minCost = groupCost;
-            selectedIndex = i;
-          }
-        }
-      }
+    //We can now traverse to the goal
+    try {
+      addAStarPathToPendingMoves(state.getPlayerLocation(), goal, state.getDirection(), state.haveKey(),
+        state.haveAxe());
+    } finally {
+      planningMap.clear();
+    }
 
-      boolean madePlan = false;
+    return true;
+  }
 
-      //A solution that leads to gold is not possible if goldSolutions is empty
-      //Lets find a solution that leads to stepping stones
-      if (goldSolutions.isEmpty() && !state.getSSLocations().isEmpty()) {
-        selectedIndex = getOptimalWaterTile(solutionGroup, state.getSSLocations());
-        madePlan = true;
+  /**
+   * Finds the first goal in candidateGoals that can be reached by placing the stepping stones we hold.
+   *
+   * If a parallelism level greater than 1 was given, every candidate is checked concurrently on the pool against
+   * a snapshot of the internal map. Otherwise candidates are checked one at a time until one is reachable. Both
+   * give the same result as the earliest reachable candidate in the list is always returned.
+   *
+   * @param candidateGoals unreachable goals in order of preference
+   * @return the first goal that can be reached using stepping stones or null if there is none
+   */
+  private Point2D.Double getFirstCrossableGoal(List<Point2D.Double> candidateGoals) {
+    if (pool == null || candidateGoals.size() < 2) {
+      for (Point2D.Double goal : candidateGoals) {
+        if (planCrossing(goal, Collections.emptyList()))
+          return goal;
       }
 
-      //A solution that leads to stepping stone is not possible
-      //Lets find a solution that leads to keys
-      if (!madePlan && !state.getKeyLocations().isEmpty()) {
-        selectedIndex = getOptimalWaterTile(solutionGroup, state.getKeyLocations());
-        madePlan = true;
-      }
+      return null;
+    }
 
-      //A solution that leads to keys is not possible
-      //Lets find a solution that leads to axes
-      if (!madePlan && !state.getAxeLocations().isEmpty()) {
-        selectedIndex = getOptimalWaterTile(solutionGroup, state.getAxeLocations());
-        madePlan = true;
-      }
+    snapshot.copyFrom(state.getMap());
 
-      //At this stage, using the stepping stone on any water tile has same effect
-      //Each one has the same benefit so simply just pick any solution (ie the first one)
+    Point2D.Double player = state.getPlayerLocation();
+    int stones = state.getNumSteppingStones();
+    boolean hasKey = state.haveKey(), hasAxe = state.haveAxe();
 
-      //Replace every waterTile with a temporary water block
-      for (Point2D.Double waterTile : solutionGroup.get(selectedIndex)) {
-        state.getMap().put(waterTile, State.OBSTACLE_TEMPORARY_WATER);
-      }
+    try {
+      OptionalInt first = pool.submit(() -> IntStream.range(0, candidateGoals.size()).parallel()
+        .filter(i -> snapshotPlanners.get().search(player, candidateGoals.get(i), stones, hasKey, hasAxe,
+          Collections.emptyList()))
+        .findFirst()).get();
+
+      return first.isPresent() ? candidateGoals.get(first.getAsInt()) : null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("stepping stone candidate evaluation failed", e.getCause());
     }
+  }
 
-    //We can now traverse to the goal
-    addAStarPathToPendingMoves(state.getPlayerLocation(), goal, state.getDirection(), state.haveKey(), state.haveAxe());
+  /**
+   * Delegates to CrossingPlanner#search with the current player location and inventory.
+   *
+   * @param goal unreachable destination goal
+   * @param interestPoints points that stepping stones should preferably be placed close to
+   * @return true if goal is reachable with the stepping stones we hold, false otherwise
+   */
+  private boolean planCrossing(Point2D.Double goal, List<Point2D.Double> interestPoints) {
+    long searchStart = metrics.startSearch();
+    boolean found = crossingPlanner.search(state.getPlayerLocation(), goal, state.getNumSteppingStones(),
+      state.haveKey(), state.haveAxe(), interestPoints);
+    metrics.endSearch(DecisionMetrics.CROSSING_PLANNER, searchStart, crossingPlanner.getNodesExpanded());
 
-    return moveMade;
+    return found;
+  }
+
+  /**
+   * Delegates to State#isReachable and records the test in the metrics.
+   *
+   * @param start the starting point
+   * @param goal the goal point
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   * @return true if goal is reachable from start, false otherwise
+   */
+  private boolean isReachable(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    if (!metrics.isEnabled())
+      return state.isReachable(start, goal, hasKey, hasAxe);
+
+    long searchStart = metrics.startSearch();
+    long nodesBefore = state.getReachabilityNodesVisited();
+    boolean reachable = state.isReachable(start, goal, hasKey, hasAxe);
+    metrics.endSearch(DecisionMetrics.REACHABILITY, searchStart, state.getReachabilityNodesVisited() - nodesBefore);
+
+    return reachable;
   }
 
   /**
@@ -590,155 +843,4 @@ public class MoveMaker {
 
     return result;
   }
-
-  /**
-   * Given an arr array with date, creates combinations of depth n where each combination is a adjacent point group
-   * See link for source.
-   *
-   * @param n depth of combinations
-   * @param arr array containing data
-   * @param list  empty array that is to be filled with all of the combinations
-   * @see <a href="https://stackoverflow.com/a/29910788/1800854">Algorithm to get all the combinations of size n
-   * from an array(by Raniz)</a>
-   * @see MoveMaker#isPointGroupAdjacent(List) uses this function to filter list (memory optimization)
-   */
-  private void getAdjacentcombinations(int n, Point2D.Double[] arr, List<Point2D.Double[]> list) {
-    // Calculate the number of arrays we should create
-    long numArrays = binomial(arr.length, n); //optimization: binomial here instead of power as positions do not matter
-
-    // Create each array
-    for(int i = 0; i < numArrays; i++) {
-      Point2D.Double[] current = new Point2D.Double[n];
-      // Calculate the correct item for each position in the array
-      for(int j = 0; j < n; j++) {
-        // This is the period with which this position changes, i.e.
-        // a period of 5 means the value changes every 5th array
-        int period = (int) Math.pow(arr.length, n - j - 1);
-        // Get the correct item and set it
-        int index = i / period % arr.length;
-        current[j] = arr[index];
-      }
-
-      //Check current to see if all points inside are adjacent
-      //Filter non adjacent point groups
-      //The only way to reach the objective is to use stepping stones on adjacent water tiles
-      //This filter results in severe performance gains as we do cheap connectivity tests with no map compared to
-      //more costly flood fill searches on the actual map
-      if (isPointGroupAdjacent(Arrays.asList(current)))
-        list.add(current);
-    }
-  }
-
-
-  /**
-   * Perform a connectivity test using a cheap connectedWalk.
-   * A connected group of points is one where every point is reachable from any other point in the group.
-   *
-   * @param group group of points that are to be compared
-   * @return true if group array is of size 1 or less or all points are connected, false otherwise
-   */
-  private static boolean isPointGroupAdjacent(List<Point2D.Double> group) {
-    BitSet notVisited = new BitSet(group.size());
-    notVisited.set(0, group.size());
-    walkConnected(group, notVisited, 0);
-    return notVisited.isEmpty();
-  }
-
-  /**
-   * Helper function to check if a list of points are connected.
-   * Utilises a bitset for performance gains (less allocations made overall)
-   *
-   * @param points list of points to compare
-   * @param notVisited a bitset that keeps track of what has been visited and what hasn't
-   * @param visit identifies what Point is currently being inspected
-   */
-  private static void walkConnected(List<Point2D.Double> points, BitSet notVisited, int visit) {
-    notVisited.set(visit, false);
-    Point2D.Double here = points.get(visit);
-    for (int i = 0; i < points.size(); i++) {
-      if (i != visit && notVisited.get(i)) {
-        Point2D.Double other = points.get(i);
-        boolean connected = false;
-        if (here.x == other.x) {
-          if (Math.abs(here.y - other.y) <= 1) {
-            connected = true;
-          }
-        } else if (here.y == other.y) {
-          if (Math.abs(here.x - other.x) <= 1) {
-            connected = true;
-          }
-        }
-
-        //Calls recursively
-        if (connected) {
-          walkConnected(points, notVisited, i);
-        }
-      }
-    }
-  }
-
-
-  /**
-   * Helper function: Calculate binomial coefficient.
-   *
-   * @param n number of possibilities to pick
-   * @param k unordered outcomes
-   * @return  binomial coefficient, ie (n, k)
-   * @see <a href="https://stackoverflow.com/a/36926193/1800854">Binomial Coeffecient method (by Chris Sherlock)</a>
-   */
-  private static long binomial(int n, int k)
-  {
-    if (k>n-k)
-      k=n-k;
-
-    long b=1;
-    for (int i=1, m=n; i<=k; i++, m--)
-      b=b*m/i;
-    return b;
-  }
-
-
-  /**
-   * Given a list of solution points and some interest points calculated the cost of each solution.
-   * It does this by applying the manhattan distance formula from each point (water tile) in the solution to
-   * every interest point and cumulatively adding this to a total. The index of the minimum costing solution is
-   * maintained and eventually returned. This is used to determine which water tile should be removed (via stepping
-   * stones) to travel based on the effectiveness of the move rather than just picking at random. If all moves have
-   * the same cost (ie it doesn't matter which one you pick), 0 is returned (first solution index).
-   *
-   * @param solutionPoints list of solutions (adjacent water tiles) that are to be examined
-   * @param interestPoints list of interest points that should be included in solution cost calculation
-   * @return the index of the best solution (lowest cost) in solutionGroup, 0 by default if no best solution or all
-   *         solutions have the same cost
-   */
-  private int getOptimalWaterTile(List<Point2D.Double[]> solutionPoints, List<Point2D.Double> interestPoints) {
-    int selectedIndex = 0; //default solution is 0
-
-    if (!interestPoints.isEmpty()) {
-      int minCost = 999999; //represents infinity
-
-      for (int i = 0; i < solutionPoints.size(); ++i) {
-        Point2D.Double[] group = solutionPoints.get(i);
-        int groupCost = 0;
-
-        //Pick solution closest to gold
-        for (Point2D.Double solution : group) {
-          //For every stepping stone we see
-          for (Point2D.Double location : interestPoints) {
-            //Manhattan distance to each interest point
-            groupCost += (Math.abs((int) solution.getX() - (int) location.getX()) +
-              Math.abs((int) solution.getY() - (int) location.getY()));
-          }
-        }
-
-        //If new minimum costing solution, save index
-        if (groupCost < minCost) {
-          minCost = groupCost;
-          selectedIndex = i;
-        }
-      }
-    }
-
-    return selectedIndex;
-  }
 }
\ No newline at end of file
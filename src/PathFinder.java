@@ -0,0 +1,62 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * PathFinder interface.
+ *
+ * A reusable shortest path search on a 4-connected grid, using the passability rules of State#isTilePassable.
+ * MoveMaker turns the paths into moves, so every implementation must return a path of adjacent tiles.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see AStar
+ * @see JumpPointSearch
+ */
+public interface PathFinder {
+  //Names of the implementations, as accepted by create()
+  String ASTAR = "astar";
+  String JUMP_POINT_SEARCH = "jps";
+
+  /**
+   * Searches for a shortest path from start to goal. Any information from a previous search is discarded.
+   *
+   * @param start the starting point we begin to search from
+   * @param goal  the goal point which we will try to find the shortest path to
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   */
+  void search(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe);
+
+  /**
+   * Precondition: a call to search() has been made before this method is called
+   *
+   * @return LinkedList of adjacent Point2D.Double objects that form a path from goal to start (excluding start
+   *         point). Otherwise, empty LinkedList meaning no path was found.
+   */
+  LinkedList<Point2D.Double> getPath();
+
+  /**
+   * @return number of tiles expanded by the last call to search()
+   */
+  int getNodesExpanded();
+
+  /**
+   * @return true if name is the name of an implementation
+   */
+  static boolean isName(String name) {
+    return ASTAR.equals(name) || JUMP_POINT_SEARCH.equals(name);
+  }
+
+  /**
+   * @param name ASTAR or JUMP_POINT_SEARCH
+   * @param map the map containing information about the environment
+   * @return a new path finder of the named implementation or null if there is no implementation with that name
+   */
+  static PathFinder create(String name, TileSource map) {
+    switch (name) {
+      case ASTAR: return new AStar(map);
+      case JUMP_POINT_SEARCH: return new JumpPointSearch(map);
+      default: return null;
+    }
+  }
+}
@@ -0,0 +1,395 @@
+import java.io.*;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * SharedMemoryLink class.
+ *
+ * Connects a game engine and an agent running as separate processes on the same machine through a file both map
+ * into memory with FileChannel.map. The file holds two single producer, single consumer ring buffers of bytes,
+ * one carrying views from the engine to the agent and one carrying actions from the agent to the engine, so a move
+ * costs no system call as long as both ends are running. The bytes sent are the same as over a socket, so batches
+ * and view encodings work unchanged.
+ *
+ * A ring is a byte array with a write sequence, advanced by the producer, and a read sequence, advanced by the
+ * consumer, each on its own cache line. Both are byte counts since the ring was created, so the ring holds
+ * write - read bytes. Sequences are published with a release fence after the bytes are written and read with an
+ * acquire fence before the bytes are read.
+ *
+ * An end waiting for bytes (or for space) spins for a while (unless there is a single processor), then yields for
+ * up to a millisecond, then parks for short periods, since the other end is in another process and can not unpark
+ * it.
+ *
+ * The engine creates the file with create() and the agent maps it with attach(). As with a socket, the agent must
+ * be started after the engine, a file left behind by an engine that was killed looks like a live one. Each end
+ * reads from getInput() and writes to getOutput(), closing an output tells the other end no more bytes will come.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public final class SharedMemoryLink implements Closeable {
+  private static final int MAGIC = 0x41475331;
+  private static final int CAPACITY = 1 << 16; //bytes per ring, a power of 2
+
+  //Layout of the file, every sequence on its own cache line
+  private static final int CACHE_LINE = 64;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int VIEW_RING = CACHE_LINE;
+  private static final int ACTION_RING = VIEW_RING + 2 * CACHE_LINE;
+  private static final int DATA = ACTION_RING + 2 * CACHE_LINE;
+
+  //Layout of the header of a ring, relative to its start
+  private static final int WRITE_SEQUENCE = 0;
+  private static final int WRITER_CLOSED = 8;
+  private static final int READ_SEQUENCE = CACHE_LINE;
+  private static final int READER_CLOSED = CACHE_LINE + 8;
+
+  //Waiting for the other end. Spinning is pointless on a single processor, the other end can only run once we
+  //give it up, so there we only yield until we start parking.
+  private static final long SPIN_NANOS = Runtime.getRuntime().availableProcessors() > 1 ? 50000 : 0;
+  private static final long YIELD_NANOS = 1000000;
+  private static final long PARK_NANOS = 50000;
+  private static final long ATTACH_POLL_NANOS = 1000000;
+
+  //Memory fences ordering the plain accesses of the mapped file. These are the VarHandle fences on Java 9 or later
+  //and the equivalent sun.misc.Unsafe fences on Java 8, invoking a constant MethodHandle is inlined by the JIT.
+  private static final MethodHandle ACQUIRE_FENCE = findFence("acquireFence", "loadFence");
+  private static final MethodHandle RELEASE_FENCE = findFence("releaseFence", "storeFence");
+
+  private final Ring input;
+  private final Ring output;
+
+  private SharedMemoryLink(Ring input, Ring output) {
+    this.input = input;
+    this.output = output;
+  }
+
+  /**
+   * Creates (or replaces) the file and maps it as the game engine end.
+   *
+   * @param fileName the file to create
+   * @return the engine end of the link
+   * @throws IOException if the file can not be created or mapped
+   */
+  public static SharedMemoryLink create(String fileName) throws IOException {
+    Path path = Paths.get(fileName);
+    Files.deleteIfExists(path); //an agent must never see a ring left behind by an earlier game
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+      StandardOpenOption.WRITE)) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + 2L * CAPACITY);
+    }
+    buffer.order(ByteOrder.nativeOrder());
+
+    //The new file is all zeros, so both rings are empty and open, the magic number tells the agent it is ready
+    buffer.putInt(CAPACITY_OFFSET, CAPACITY);
+    releaseFence();
+    buffer.putInt(MAGIC_OFFSET, MAGIC);
+
+    return new SharedMemoryLink(new Ring(buffer, ACTION_RING, DATA + CAPACITY, false),
+      new Ring(buffer, VIEW_RING, DATA, true));
+  }
+
+  /**
+   * Maps a file created by a game engine as the agent end, waiting for the engine to create it.
+   *
+   * @param fileName the file the game engine created
+   * @param timeoutMillis how long to wait for the file to be created
+   * @return the agent end of the link
+   * @throws IOException if the file is not created in time or can not be mapped
+   */
+  public static SharedMemoryLink attach(String fileName, long timeoutMillis) throws IOException {
+    Path path = Paths.get(fileName);
+    long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+
+    while (true) {
+      MappedByteBuffer buffer = null;
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        if (channel.size() >= DATA)
+          buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+      } catch (NoSuchFileException e) {
+        //Not created yet, or being replaced by create()
+      }
+
+      if (buffer != null) {
+        buffer.order(ByteOrder.nativeOrder());
+
+        if (buffer.getInt(MAGIC_OFFSET) == MAGIC) {
+          acquireFence();
+          if (buffer.getInt(CAPACITY_OFFSET) != CAPACITY || buffer.capacity() < DATA + 2L * CAPACITY)
+            throw new IOException(fileName + " was created with a different ring layout");
+
+          return new SharedMemoryLink(new Ring(buffer, VIEW_RING, DATA, false),
+            new Ring(buffer, ACTION_RING, DATA + CAPACITY, true));
+        }
+      }
+
+      if (System.nanoTime() - deadline > 0)
+        throw new IOException("no game engine created " + fileName);
+
+      LockSupport.parkNanos(ATTACH_POLL_NANOS);
+    }
+  }
+
+  /**
+   * @return the channel the other end writes to
+   */
+  public Ring getInput() {
+    return input;
+  }
+
+  /**
+   * @return the channel the other end reads from
+   */
+  public Ring getOutput() {
+    return output;
+  }
+
+  @Override
+  public void close() {
+    output.close();
+    input.close();
+  }
+
+  /**
+   * One direction of the link, either the producer or the consumer end of a ring.
+   */
+  public static final class Ring implements ReadableByteChannel, WritableByteChannel {
+    private final MappedByteBuffer buffer;
+    private final int header;
+    private final ByteBuffer data;
+    private final boolean producer;
+
+    //Our own sequence, only we write it so there is no need to read it back from the file
+    private long sequence;
+    private long readTimeoutNanos;
+    private boolean open;
+
+    private Ring(MappedByteBuffer buffer, int header, int dataOffset, boolean producer) {
+      this.buffer = buffer;
+      this.header = header;
+      this.producer = producer;
+
+      ByteBuffer region = buffer.duplicate();
+      region.position(dataOffset);
+      region.limit(dataOffset + CAPACITY);
+      this.data = region.slice();
+
+      this.sequence = buffer.getLong(header + (producer ? WRITE_SEQUENCE : READ_SEQUENCE));
+      this.open = true;
+    }
+
+    /**
+     * Limits how long read() waits for the first byte.
+     *
+     * @param timeoutMillis the limit, 0 to wait forever
+     */
+    public void setReadTimeout(int timeoutMillis) {
+      this.readTimeoutNanos = timeoutMillis * 1000000L;
+    }
+
+    /**
+     * Reads the bytes available, waiting until there is at least one.
+     *
+     * @return number of bytes read, or -1 if the producer closed the ring and every byte has been read
+     * @throws InterruptedIOException if no byte arrived within the read timeout
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (producer)
+        throw new NonReadableChannelException();
+      if (!open)
+        throw new ClosedChannelException();
+      if (!dst.hasRemaining())
+        return 0;
+
+      long available = waitForBytes();
+      if (available < 0)
+        return -1;
+
+      int count = 0;
+      while (available > 0 && dst.hasRemaining()) {
+        int index = (int) (sequence & (CAPACITY - 1));
+        int chunk = (int) Math.min(Math.min(available, dst.remaining()), CAPACITY - index);
+
+        data.limit(index + chunk);
+        data.position(index);
+        dst.put(data);
+
+        sequence += chunk;
+        available -= chunk;
+        count += chunk;
+      }
+
+      //The bytes have been copied out before the producer may overwrite them
+      releaseFence();
+      buffer.putLong(header + READ_SEQUENCE, sequence);
+
+      return count;
+    }
+
+    /**
+     * Writes every remaining byte of src, waiting for space when the ring is full.
+     *
+     * @return number of bytes written
+     * @throws IOException if the consumer closed the ring
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!producer)
+        throw new NonWritableChannelException();
+      if (!open)
+        throw new ClosedChannelException();
+
+      int count = 0;
+      while (src.hasRemaining()) {
+        int free = waitForSpace();
+        int index = (int) (sequence & (CAPACITY - 1));
+        int chunk = Math.min(Math.min(free, src.remaining()), CAPACITY - index);
+
+        int limit = src.limit();
+        src.limit(src.position() + chunk);
+        data.limit(index + chunk);
+        data.position(index);
+        data.put(src);
+        src.limit(limit);
+
+        sequence += chunk;
+        count += chunk;
+
+        //The bytes are written before the consumer may see the new sequence
+        releaseFence();
+        buffer.putLong(header + WRITE_SEQUENCE, sequence);
+      }
+
+      return count;
+    }
+
+    /**
+     * @return number of bytes that can be read, or -1 if the producer closed the ring and all bytes have been read
+     */
+    private long waitForBytes() throws IOException {
+      long start = System.nanoTime();
+
+      while (true) {
+        long available = buffer.getLong(header + WRITE_SEQUENCE) - sequence;
+        acquireFence();
+        if (available > 0)
+          return available;
+
+        if (buffer.getInt(header + WRITER_CLOSED) != 0) {
+          acquireFence();
+          //Bytes written before closing are visible now
+          available = buffer.getLong(header + WRITE_SEQUENCE) - sequence;
+          acquireFence();
+          return available > 0 ? available : -1;
+        }
+
+        long waited = pause(start);
+        if (readTimeoutNanos > 0 && waited > readTimeoutNanos)
+          throw new InterruptedIOException("no bytes arrived within the read timeout");
+      }
+    }
+
+    /**
+     * @return number of bytes that can be written, at least 1
+     */
+    private int waitForSpace() throws IOException {
+      long start = System.nanoTime();
+
+      while (true) {
+        long free = CAPACITY - (sequence - buffer.getLong(header + READ_SEQUENCE));
+        acquireFence();
+        if (free > 0)
+          return (int) free;
+
+        if (buffer.getInt(header + READER_CLOSED) != 0)
+          throw new IOException("the other end closed the link");
+
+        pause(start);
+      }
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    /**
+     * Tells the other end this end is done, a consumer reading the ring gets -1 once it has read every byte.
+     */
+    @Override
+    public void close() {
+      if (!open)
+        return;
+
+      open = false;
+      releaseFence();
+      buffer.putInt(header + (producer ? WRITER_CLOSED : READER_CLOSED), 1);
+    }
+  }
+
+  /**
+   * Waits a little before checking the other end again: spins at first, then yields, then parks.
+   *
+   * @param start System.nanoTime() when we started waiting
+   * @return nanoseconds waited so far
+   */
+  private static long pause(long start) {
+    long waited = System.nanoTime() - start;
+
+    if (waited < SPIN_NANOS)
+      return waited;
+
+    if (waited < SPIN_NANOS + YIELD_NANOS)
+      Thread.yield();
+    else
+      LockSupport.parkNanos(PARK_NANOS);
+
+    return waited;
+  }
+
+  private static void acquireFence() {
+    try {
+      ACQUIRE_FENCE.invokeExact();
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void releaseFence() {
+    try {
+      RELEASE_FENCE.invokeExact();
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return a handle to the static VarHandle fence of the given name, or to the sun.misc.Unsafe fence of the given
+   *         name bound to the Unsafe instance if VarHandle does not exist
+   */
+  private static MethodHandle findFence(String varHandleFence, String unsafeFence) {
+    MethodType type = MethodType.methodType(void.class);
+
+    try {
+      return MethodHandles.publicLookup().findStatic(Class.forName("java.lang.invoke.VarHandle"), varHandleFence,
+        type);
+    } catch (ReflectiveOperationException e) {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return MethodHandles.publicLookup().findVirtual(unsafeClass, unsafeFence, type).bindTo(field.get(null));
+      } catch (ReflectiveOperationException e2) {
+        throw new ExceptionInInitializerError(e2);
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+import java.io.*;
+
+/**
+ * SharedMemoryTransport class.
+ *
+ * Transport to a game engine running on the same machine through a memory mapped file (see SharedMemoryLink),
+ * which avoids the system calls and wakeups of a loopback socket on every move.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see ChannelTransport
+ */
+public class SharedMemoryTransport extends ChannelTransport {
+  //How long to wait for the game engine to create the file
+  private static final long ATTACH_TIMEOUT_MILLIS = 10000;
+
+  /**
+   * Constructor. Maps the file, waiting for the game engine to create it.
+   *
+   * @param fileName the file the game engine shares
+   * @param encoding view encoding to request once the first view has been read (a ViewCodec mode)
+   * @throws IOException if the file could not be mapped
+   */
+  public SharedMemoryTransport(String fileName, int encoding) throws IOException {
+    this(SharedMemoryLink.attach(fileName, ATTACH_TIMEOUT_MILLIS), encoding);
+  }
+
+  private SharedMemoryTransport(SharedMemoryLink link, int encoding) {
+    super(link.getInput(), link.getOutput(), encoding);
+  }
+}
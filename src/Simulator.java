@@ -0,0 +1,324 @@
+/**
+ * Simulator class.
+ *
+ * Plays games on a WorldTemplate without a socket, without printing and without ending the JVM, so many games can
+ * be played in one JVM. The rules are the same as those of Stepping: step() applies one action and returns the
+ * outcome of the game, view() returns what the player sees, and reset() starts a new game on the same template by
+ * copying its tiles.
+ *
+ * Once a game is won or lost further actions are ignored until the next reset().
+ *
+ * The map is kept in one byte array with a sentinel border and views are read through precomputed offset tables
+ * for each direction, so neither a step nor a view needs a bounds check or a rotation. applyAll() applies a whole
+ * sequence of actions in one call for fuzzing and search based agents.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see Stepping
+ */
+public class Simulator {
+  //Directions, numbered as in Stepping
+  public static final int EAST = 0;
+  public static final int NORTH = 1;
+  public static final int WEST = 2;
+  public static final int SOUTH = 3;
+
+  private static final int VIEW_SIZE = 5;
+  private static final int VIEW_RADIUS = VIEW_SIZE / 2;
+  private static final char OFF_MAP = '.';
+
+  //Width of the sentinel ring, a player that walks off the map stands on the ring and can still be given a view
+  private static final int PADDING = VIEW_RADIUS + 1;
+
+  //Value of the sentinel tiles surrounding the map, maps only hold printable characters so it never clashes
+  private static final byte SENTINEL = 0;
+
+  private static final byte SPACE = ' ';
+  private static final byte WATER = '~';
+  private static final byte STONE_PLACED = 'O';
+
+  /**
+   * Outcome of a game after an action.
+   */
+  public enum Outcome {
+    PLAYING, WON, LOST
+  }
+
+  //The map is stored row by row in a single array, surrounded by a ring of PADDING sentinel tiles so neither
+  //a step nor the view can leave the array. Rows shorter than the longest row are padded with sentinels too.
+  private final int stride; //tiles per padded row
+  private final byte[] initial;
+  private final byte[] map;
+  private final int startPos;
+  private final int startDirection;
+
+  private final int[] directionDelta; //change of position when moving one tile in each direction
+  private final int[][] viewOffsets;  //[direction][i * VIEW_SIZE + j] position of view tile (i,j) relative to us
+
+  private final char[][] view;
+
+  private int pos, direction;
+  private boolean haveAxe, haveKey, haveGold;
+  private int numStonesHeld;
+  private int moves;
+  private Outcome outcome;
+  private boolean lastActionEffective;
+
+  /**
+   * Constructor. The game starts at once, there is no need to call reset().
+   *
+   * @param template the map to play on
+   * @throws IllegalArgumentException if the map contains characters that are not printable ASCII
+   */
+  public Simulator(WorldTemplate template) {
+    int rows = template.getRows(), cols = 0;
+    for (int r = 0; r < rows; ++r)
+      cols = Math.max(cols, template.getCols(r));
+
+    this.stride = cols + 2 * PADDING;
+    this.initial = new byte[(rows + 2 * PADDING) * stride];
+    for (int r = 0; r < rows; ++r) {
+      for (int c = 0; c < template.getCols(r); ++c) {
+        char tile = template.getTile(r, c);
+        if (tile < ' ' || tile > '~')
+          throw new IllegalArgumentException("map contains an unsupported character at row " + r + ", col " + c);
+
+        initial[position(r, c)] = (byte) tile;
+      }
+    }
+
+    this.map = new byte[initial.length];
+    this.startPos = position(template.getStartRow(), template.getStartCol());
+    this.startDirection = template.getStartDirection();
+
+    this.directionDelta = new int[4];
+    directionDelta[EAST] = 1;
+    directionDelta[NORTH] = -stride;
+    directionDelta[WEST] = -1;
+    directionDelta[SOUTH] = stride;
+
+    //Same rotations as Stepping.get_view
+    this.viewOffsets = new int[4][VIEW_SIZE * VIEW_SIZE];
+    for (int i = -VIEW_RADIUS; i <= VIEW_RADIUS; ++i) {
+      for (int j = -VIEW_RADIUS; j <= VIEW_RADIUS; ++j) {
+        int k = (i + VIEW_RADIUS) * VIEW_SIZE + (j + VIEW_RADIUS);
+        viewOffsets[NORTH][k] = i * stride + j;
+        viewOffsets[SOUTH][k] = -i * stride - j;
+        viewOffsets[EAST][k] = j * stride - i;
+        viewOffsets[WEST][k] = -j * stride + i;
+      }
+    }
+
+    this.view = new char[VIEW_SIZE][VIEW_SIZE];
+
+    reset();
+  }
+
+  private int position(int row, int col) {
+    return (row + PADDING) * stride + (col + PADDING);
+  }
+
+  /**
+   * Starts a new game on the template.
+   */
+  public void reset() {
+    System.arraycopy(initial, 0, map, 0, initial.length);
+
+    pos = startPos;
+    direction = startDirection;
+    haveAxe = haveKey = haveGold = false;
+    numStonesHeld = 0;
+    moves = 0;
+    outcome = Outcome.PLAYING;
+    lastActionEffective = false;
+  }
+
+  /**
+   * Applies one action (L, R, F, C or U, either case). Actions that can not be carried out, such as walking into a
+   * wall, have no effect but still count as a move.
+   *
+   * @param action the action to apply
+   * @return the outcome of the game after the action
+   */
+  public Outcome step(char action) {
+    if (outcome != Outcome.PLAYING)
+      return outcome;
+
+    ++moves;
+    lastActionEffective = false;
+
+    switch (action) {
+      case 'L': case 'l':
+        direction = (direction + 1) & 3;
+        lastActionEffective = true;
+        break;
+
+      case 'R': case 'r':
+        direction = (direction + 3) & 3;
+        lastActionEffective = true;
+        break;
+
+      case 'F': case 'f':
+        moveForward(pos + directionDelta[direction]);
+        break;
+
+      case 'C': case 'c': {
+        int front = pos + directionDelta[direction];
+        if (map[front] == 'T' && haveAxe) {
+          map[front] = SPACE;
+          lastActionEffective = true;
+        }
+        break;
+      }
+
+      case 'U': case 'u': {
+        int front = pos + directionDelta[direction];
+        if (map[front] == '-' && haveKey) {
+          map[front] = SPACE;
+          lastActionEffective = true;
+        }
+        break;
+      }
+    }
+
+    return outcome;
+  }
+
+  /**
+   * Applies actions in order until the game is won or lost, the remaining actions are ignored.
+   *
+   * @param actions the actions to apply
+   * @return the outcome of the game after the last action applied
+   * @see #step(char)
+   */
+  public Outcome applyAll(char[] actions) {
+    for (int i = 0; i < actions.length && outcome == Outcome.PLAYING; ++i)
+      step(actions[i]);
+
+    return outcome;
+  }
+
+  /**
+   * Carries out an F action towards the tile at position front.
+   */
+  private void moveForward(int front) {
+    byte tile = map[front];
+
+    if (tile == SENTINEL) {
+      lastActionEffective = true;
+      //Walking off the edge of the environment
+      map[pos] = WATER;
+      pos = front;
+      outcome = Outcome.LOST;
+      return;
+    }
+
+    if (tile == '*' || tile == 'T' || tile == '-')
+      return;
+
+    lastActionEffective = true;
+
+    if (map[pos] != STONE_PLACED)
+      map[pos] = SPACE;
+
+    if (tile == WATER) {
+      if (numStonesHeld > 0) {
+        --numStonesHeld;
+        map[front] = STONE_PLACED;
+      } else {
+        outcome = Outcome.LOST;
+      }
+    }
+
+    pos = front;
+
+    switch (tile) {
+      case 'a': haveAxe = true; break;
+      case 'k': haveKey = true; break;
+      case 'g': haveGold = true; break;
+      case 'o': ++numStonesHeld; break;
+    }
+
+    if (haveGold && pos == startPos)
+      outcome = Outcome.WON;
+
+    if (map[pos] != STONE_PLACED)
+      map[pos] = SPACE;
+  }
+
+  /**
+   * Returns the 5x5 view of the tiles around the player, rotated so the player faces up, exactly as Stepping sends
+   * it. Tiles beyond the edge of the map are shown as '.'.
+   *
+   * @return the view, the same array is reused and overwritten by the next call
+   */
+  public char[][] view() {
+    int[] offsets = viewOffsets[direction];
+
+    for (int i = 0, k = 0; i < VIEW_SIZE; ++i) {
+      char[] viewRow = view[i];
+      for (int j = 0; j < VIEW_SIZE; ++j, ++k) {
+        byte tile = map[pos + offsets[k]];
+        viewRow[j] = tile == SENTINEL ? OFF_MAP : (char) tile;
+      }
+    }
+
+    return view;
+  }
+
+  /**
+   * @return true if the last action applied changed the game, false if it had no effect (such as walking into a
+   *         wall or chopping without an axe) or no action has been applied since the last reset
+   */
+  public boolean wasLastActionEffective() {
+    return lastActionEffective;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return number of actions applied since the last reset, including actions that had no effect
+   */
+  public int getMoves() {
+    return moves;
+  }
+
+  public int getNumStonesHeld() {
+    return numStonesHeld;
+  }
+
+  public boolean haveGold() {
+    return haveGold;
+  }
+
+  public boolean haveKey() {
+    return haveKey;
+  }
+
+  public boolean haveAxe() {
+    return haveAxe;
+  }
+
+  /**
+   * @return the current tile at (row, col) of the map
+   */
+  public char getTile(int row, int col) {
+    return (char) map[position(row, col)];
+  }
+
+  /**
+   * @param tile a tile of a map
+   * @return the direction the player faces if tile shows the player, otherwise -1
+   */
+  static int directionOf(char tile) {
+    switch (tile) {
+      case '^': return NORTH;
+      case '>': return EAST;
+      case 'v': return SOUTH;
+      case '<': return WEST;
+      default: return -1;
+    }
+  }
+}
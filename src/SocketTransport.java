@@ -0,0 +1,48 @@
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+
+/**
+ * SocketTransport class.
+ *
+ * Transport over a blocking SocketChannel to a game engine listening on a TCP port.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see ChannelTransport
+ */
+public class SocketTransport extends ChannelTransport {
+  /**
+   * Constructor. Connects to the game engine, views are sent as plain ASCII.
+   *
+   * @param host host the game engine is running on
+   * @param port port the game engine is listening on
+   * @throws IOException if the connection could not be made
+   */
+  public SocketTransport(String host, int port) throws IOException {
+    this(host, port, ViewCodec.MODE_PLAIN);
+  }
+
+  /**
+   * Constructor. Connects to the game engine.
+   *
+   * @param host host the game engine is running on
+   * @param port port the game engine is listening on
+   * @param encoding view encoding to request once the first view has been read (a ViewCodec mode), the game engine
+   *                 must support negotiation (GameServer) unless encoding is ViewCodec.MODE_PLAIN
+   * @throws IOException if the connection could not be made
+   */
+  public SocketTransport(String host, int port, int encoding) throws IOException {
+    this(connect(host, port), encoding);
+  }
+
+  private SocketTransport(SocketChannel channel, int encoding) {
+    super(channel, channel, encoding);
+  }
+
+  private static SocketChannel connect(String host, int port) throws IOException {
+    SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+    channel.socket().setTcpNoDelay(true); //actions are a single byte, send them immediately
+    return channel;
+  }
+}
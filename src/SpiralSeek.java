@@ -1,4 +1,3 @@
-import java.util.*;
 import java.awt.geom.Point2D;
 
 /**
@@ -17,35 +16,17 @@ import java.awt.geom.Point2D;
  */
 public class SpiralSeek {
   private final Point2D.Double start;
-  private final Map<Point2D.Double, Character> map;
+  private final int startPacked;
+  private final TileGrid map;
+  private final FloodFill floodFill; //reused for the reachability test of every candidate
 
   //Offsets to reach 24 surrounding blocks of any block
-  private static final List offsets = Arrays.asList(
-    new Point2D.Double(0,-2),
-    new Point2D.Double(0,-1),
-    new Point2D.Double(0,1),
-    new Point2D.Double(0,2),
-    new Point2D.Double(1,-2),
-    new Point2D.Double(1,-1),
-    new Point2D.Double(1,0),
-    new Point2D.Double(1,1),
-    new Point2D.Double(1,2),
-    new Point2D.Double(2,-2),
-    new Point2D.Double(2,-1),
-    new Point2D.Double(2,0),
-    new Point2D.Double(2,1),
-    new Point2D.Double(2,2),
-    new Point2D.Double(-1,-2),
-    new Point2D.Double(-1,-1),
-    new Point2D.Double(-1,0),
-    new Point2D.Double(-1,1),
-    new Point2D.Double(-1,2),
-    new Point2D.Double(-2,-2),
-    new Point2D.Double(-2,-1),
-    new Point2D.Double(-2,0),
-    new Point2D.Double(-2,1),
-    new Point2D.Double(-2,2)
-  );
+  private static final int[] OFFSETS_X = {
+    0, 0, 0, 0, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, -1, -1, -1, -1, -1, -2, -2, -2, -2, -2
+  };
+  private static final int[] OFFSETS_Y = {
+    -2, -1, 1, 2, -2, -1, 0, 1, 2, -2, -1, 0, 1, 2, -2, -1, 0, 1, 2, -2, -1, 0, 1, 2
+  };
 
   /**
    * Constructor.
@@ -53,9 +34,11 @@ public class SpiralSeek {
    * @param map the map containing information about the environment
    * @param start the starting point from which we should spiral from
    */
-  public SpiralSeek(Map<Point2D.Double, Character> map, Point2D.Double start) {
+  public SpiralSeek(TileGrid map, Point2D.Double start) {
     this.map = map;
     this.start = start;
+    this.startPacked = Coord.pack(start);
+    this.floodFill = new FloodFill(map);
   }
 
   /**
@@ -77,27 +60,23 @@ public class SpiralSeek {
       if ((-maxX / 2 <= x) && (x <= maxX / 2) && (-maxY / 2 <= y) && (y <= maxY / 2)) {
         //Create new point to inspect
         //Offset this point by the start X and start Y as the original algorithm spirals from (0,0)
-        Point2D.Double newTile = new Point2D.Double(x +(int) start.getX() , y + (int) start.getY());
+        int newTile = Coord.pack(x + (int) start.getX(), y + (int) start.getY());
 
         ++blockCount; //this is a valid block being explored
 
         //Ignore this tile if its the start
-        if (!newTile.equals(start)) {
-          //Ensure this is a valid tile
-          if (map.get(newTile) != null) {
-            //Ensure tile is passable with our inventory
-            char newTileType = map.get(newTile);
-
-            if (State.isTilePassable(newTileType, hasKey, hasAxe)) {
-              //Get priority
-              if (isRevealingPoint(newTile)) {
-                //Guaranteed to reveal unknown tiles
-                //Ensure this tile is reachable
-                FloodFill ff = new FloodFill(map, start, newTile);
-                if (ff.isReachable(hasKey, hasAxe)) {
-                  //Guaranteed to be reachable, return it
-                  return newTile;
-                }
+        if (newTile != startPacked) {
+          //Ensure tile is passable with our inventory (tiles outside the map are never passable)
+          char newTileType = map.get(newTile);
+
+          if (State.isTilePassable(newTileType, hasKey, hasAxe)) {
+            //Get priority
+            if (isRevealingPoint(map, newTile)) {
+              //Guaranteed to reveal unknown tiles
+              //Ensure this tile is reachable
+              if (floodFill.isReachable(startPacked, newTile, hasKey, hasAxe)) {
+                //Guaranteed to be reachable, return it
+                return Coord.toPoint(newTile);
               }
             }
           }
@@ -125,23 +104,20 @@ public class SpiralSeek {
    * they are then traversing to the point is guaranteed to reveal at least 1 unknown block, thus
    * giving us more information about the environment overall.
    *
-   * @param point the point being tested
+   * @param map the map containing information about the environment
+   * @param point packed coordinate of the point being tested
    * @return  true if any surrounding block is a block of type State.OBSTACLE_UNKNOWN, false otherwise
    */
-  private boolean isRevealingPoint(Point2D.Double point) {
+  static boolean isRevealingPoint(TileGrid map, int point) {
     //For every surrounding block
+    for (int i = 0; i < OFFSETS_X.length; ++i) {
+      int surroundingPoint = Coord.offset(point, OFFSETS_X[i], OFFSETS_Y[i]);
 
-    for (Object obj : offsets) {
-      Point2D.Double offset = (Point2D.Double)obj;
-      Point2D.Double surroundingPoint = new Point2D.Double(point.getX() + offset.getX(), point.getY() + offset.getY());
+      char surroundingPointType = map.get(surroundingPoint);
 
-      if (map.get(surroundingPoint) != null) {
-        char surroundingPointType = map.get(surroundingPoint);
-
-        //if this condition is true, the original point is revealing, return true
-        if (surroundingPointType == State.OBSTACLE_UNKNOWN)
-          return true;
-      }
+      //if this condition is true, the original point is revealing, return true
+      if (surroundingPointType == State.OBSTACLE_UNKNOWN)
+        return true;
     }
 
     //Point is not revealing
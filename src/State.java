@@ -7,7 +7,7 @@ import java.awt.geom.Point2D;
  * Maintains internal map (model) of environment as well as the locations of resources (tools) and the gold.
  *
  * @author Mohammad Ghasembeigi
- * @version 1.8
+ * @version 1.9
  */
 public class State {
   //Class definitions
@@ -53,8 +53,23 @@ public class State {
   final static int MAX_GRID_X = 80;
   final static int MAX_GRID_Y = 80;
 
+  //View translation, VIEW_OFFSETS[direction][i * 5 + j] holds the offset of view[i][j] from the player
+  //packed as (dx + 2) * VIEW_OFFSET_BASE + (dy + 2)
+  private final static int VIEW_OFFSET_BASE = 5;
+  private final static int[][] VIEW_OFFSETS = buildViewOffsets();
+
+  //Flags for seenAs, records which location lists a tile has already been added to
+  private final static byte SEEN_AXE = 1;
+  private final static byte SEEN_KEY = 2;
+  private final static byte SEEN_STEPPING_STONE = 4;
+  private final static byte SEEN_WATER = 8;
+  private final static byte SEEN_SPACE = 16;
+
   //Class variables
-  private Map<Point2D.Double, Character> map;
+  private TileGrid map;
+  private ComponentIndex components; //connected components of map, kept up to date by setTile
+  private DistanceField homeDistances; //distances to the origin for the current inventory, kept up to date by setTile
+  private List<TileChangeListener> tileListeners; //told about every change made by setTile, components first
 
   //Tool inventory
   private boolean haveAxe;
@@ -76,6 +91,7 @@ public class State {
   private LinkedList<Point2D.Double> ssLocations; //ss short for stepping stones
   private LinkedList<Point2D.Double> waterLocations;
   private LinkedList<Point2D.Double> spaceLocations;
+  private byte[] seenAs; //SEEN_* flags for every tile
 
   /**
    * Constructor.
@@ -93,18 +109,17 @@ public class State {
     this.curX = this.curY = 0;
     
     //Prefill map with unknowns for reasonable bounds
-    this.map = new HashMap<>();
-
-    //However, as our starting origin is (0,0), our total boundary should be at least MAX_GRID_X*2 by MAX_GRID_Y*2
-    for (int x = -MAX_GRID_X; x <= MAX_GRID_X; ++x) {
-      for (int y = -MAX_GRID_Y; y <= MAX_GRID_Y; ++y) {
-        this.map.put(new Point2D.Double(x, y), OBSTACLE_UNKNOWN);
-      }
-    }
+    //As our starting origin is (0,0), our total boundary should be at least MAX_GRID_X*2 by MAX_GRID_Y*2
+    this.map = new TileGrid(OBSTACLE_UNKNOWN);
     
     //Initially, we always consider ourselves to be facing up
     this.direction = UP;
-    this.map.put(new Point2D.Double(0, 0), DIRECTION_UP);
+    this.map.set(0, 0, DIRECTION_UP);
+    this.components = new ComponentIndex(this.map);
+    this.homeDistances = new DistanceField(this.map, new Point2D.Double(0, 0), false, false);
+    this.tileListeners = new ArrayList<>();
+    this.tileListeners.add(this.components);
+    this.tileListeners.add(this.homeDistances);
 
     this.isGoldVisible = false;
     this.axeLocations = new LinkedList<>();
@@ -112,13 +127,16 @@ public class State {
     this.ssLocations = new LinkedList<>();
     this.waterLocations = new LinkedList<>();
     this.spaceLocations = new LinkedList<>();
+    this.seenAs = new byte[TileGrid.SIZE];
   }
 
 
   /**
    * This method updated the internal map model based on the view provided.
-   * To accomplish this, the view is first rotated so it is aligned with our initial map direction (UP).
-   * Then all the tiles in the view are put into the map (overwriting any old values)
+   * Every tile in the view is translated to its map coordinate using the precomputed VIEW_OFFSETS table for the
+   * direction we are facing (which is equivalent to rotating the view so it is aligned with our initial map
+   * direction (UP)). Then all the tiles in the view are put into the map (overwriting any old values).
+   * No objects are created unless a new tool, water or space location is found.
    *
    * This method also tracks new tools as they are found: goldLocation, keyLocations, axeLocation
    * It also sets isGoldVisible to true if the gold is present in the view.
@@ -126,38 +144,18 @@ public class State {
    * @param view Grid containing tiles around our player.
    */
   public void updateFromView(char view[][]) {
+    int[] offsets = VIEW_OFFSETS[direction];
 
-    //Determine how many times to rotate our view so it is facing UP based on our initial map
-    //This is required so we can use the same map update code regardless of the views direction
-    int numTimesToRotate = 0;
-
-    switch (direction) {
-      case UP:
-        //Already facing correct direction
-        break;
-      case DOWN:
-        numTimesToRotate = 2;
-        break;
-      case LEFT:
-        numTimesToRotate = 3;
-        break;
-      case RIGHT:
-        numTimesToRotate = 1;
-        break;
-    }
-
-    for (int i = 0; i < numTimesToRotate; ++i) {
-      view = rotateCW(view);
-    }
-
-    //We will treat the [0-4] indexes given by the view as offsets
-    //Thus, and x of 0 becomes -2, x of 1 becomes -1 and so on
     //The player is always at (2,2) in the view, the center tile of the view
     for (int i = 0; i < 5; ++i) {
       for (int j = 0; j < 5; ++j) {
         char curTile = view[i][j];
-        int xFinal = curX + (j - 2);
-        int yFinal = curY + (2 - i);
+        int offset = offsets[i * 5 + j];
+        int tile = Coord.pack(curX + offset / VIEW_OFFSET_BASE - 2, curY + offset % VIEW_OFFSET_BASE - 2);
+
+        //Tiles outside of the grid can not be stored
+        if (tile == Coord.NONE)
+          continue;
 
         //If this is the players tile, show the correct directional character
         if (i == 2 && j == 2) {
@@ -177,41 +175,88 @@ public class State {
           }
         }
 
-        Point2D.Double newTile = new Point2D.Double(xFinal, yFinal);
-
         //Save the locations of important tools
         if (curTile == TOOL_GOLD && !isGoldVisible) {
-          goldLocation = newTile;
+          goldLocation = Coord.toPoint(tile);
           isGoldVisible = true;
         }
-        else if (curTile == TOOL_AXE && !axeLocations.contains(newTile)) {
-          axeLocations.add(newTile);
+        else if (curTile == TOOL_AXE) {
+          recordLocation(tile, SEEN_AXE, axeLocations);
         }
-        else if (curTile == TOOL_KEY && !keyLocations.contains(newTile)) {
-          keyLocations.add(newTile);
+        else if (curTile == TOOL_KEY) {
+          recordLocation(tile, SEEN_KEY, keyLocations);
         }
-        else if (curTile == TOOL_STEPPING_STONE && !ssLocations.contains(newTile)) {
-          ssLocations.add(newTile);
+        else if (curTile == TOOL_STEPPING_STONE) {
+          recordLocation(tile, SEEN_STEPPING_STONE, ssLocations);
         }
-        else if (curTile == OBSTACLE_WATER && !waterLocations.contains(newTile)) {
-          waterLocations.add(newTile);
+        else if (curTile == OBSTACLE_WATER) {
+          recordLocation(tile, SEEN_WATER, waterLocations);
         }
-        else if (curTile == OBSTACLE_SPACE && !spaceLocations.contains(newTile)) {
-          spaceLocations.add(newTile);
+        else if (curTile == OBSTACLE_SPACE) {
+          recordLocation(tile, SEEN_SPACE, spaceLocations);
         }
 
 
         //Special filter, don't replace this tile with water!
         //That will be handled when we reach the temporary water
-        if (map.get(newTile) != null && map.get(newTile) == OBSTACLE_TEMPORARY_WATER)
+        if (map.get(tile) == OBSTACLE_TEMPORARY_WATER)
           continue;
 
         //Update tile in map
-        map.put(newTile, curTile);
+        setTile(tile, curTile);
       }
     }
   }
 
+  /**
+   * Adds tile to locations the first time it is seen as a particular type of tile.
+   * Uses the seenAs flags instead of searching locations so no point needs to be created to check membership.
+   *
+   * @param tile packed coordinate of the tile
+   * @param flag the SEEN_* flag for the type of tile
+   * @param locations list of locations of that type of tile
+   */
+  private void recordLocation(int tile, byte flag, List<Point2D.Double> locations) {
+    if ((seenAs[tile] & flag) != 0)
+      return;
+
+    seenAs[tile] |= flag;
+    locations.add(Coord.toPoint(tile));
+  }
+
+  /**
+   * Builds the VIEW_OFFSETS table. For each direction, the view indexes are rotated clockwise the same number of
+   * times the view itself would need to be rotated to face UP, then each rotated position (i,j) gives the offset
+   * (j - 2, 2 - i) from the player.
+   *
+   * @return table of offsets indexed by [direction][i * 5 + j]
+   */
+  private static int[][] buildViewOffsets() {
+    int[][] table = new int[4][25];
+
+    for (int dir = 0; dir < 4; ++dir) {
+      //Number of clockwise rotations needed to align a view facing dir with UP
+      int numTimesToRotate = dir; //UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3
+
+      int[][] indexes = new int[5][5];
+      for (int i = 0; i < 5; ++i)
+        for (int j = 0; j < 5; ++j)
+          indexes[i][j] = i * 5 + j;
+
+      for (int r = 0; r < numTimesToRotate; ++r)
+        indexes = rotateCW(indexes);
+
+      for (int i = 0; i < 5; ++i) {
+        for (int j = 0; j < 5; ++j) {
+          //Store (dx + 2, dy + 2) = (j, 4 - i) packed into one int as both are in [0, 4]
+          table[dir][indexes[i][j]] = j * VIEW_OFFSET_BASE + (4 - i);
+        }
+      }
+    }
+
+    return table;
+  }
+
 
   /**
    * Updates the internal map as well as other variables (ie tool inventory) based on move the player is about to make.
@@ -262,8 +307,8 @@ public class State {
         break;
       case 'F':
         //Get tile directly in front of us, this is the tile we will be moving onto in this next move
-        Point2D.Double nextTilePoint = getTileInFront(new Point2D.Double(curX, curY));
-        nextTile = map.get(nextTilePoint);
+        int nextTilePacked = getTileInFront(Coord.pack(curX, curY), direction);
+        nextTile = map.get(nextTilePacked);
 
         //Moving forwards against a wall, door or tree is a NOP
         //We have to use C and U to remove doors/trees and walls cant be moved into at all
@@ -282,24 +327,26 @@ public class State {
           }
 
           if (nextTile == OBSTACLE_TEMPORARY_WATER) {
-            map.put(nextTilePoint, OBSTACLE_STEPPING_STONE_PLACED);
+            setTile(nextTilePacked, OBSTACLE_STEPPING_STONE_PLACED);
           }
 
-          waterLocations.remove(nextTilePoint); //no longer water
+          waterLocations.remove(Coord.toPoint(nextTilePacked)); //no longer water
         }
 
         //Collect tools
         if (nextTile == TOOL_STEPPING_STONE) {
-          if (ssLocations.contains(nextTilePoint)) //remove this stepping stone as we pick it up
-            ssLocations.remove(nextTilePoint);
+          //remove this stepping stone as we pick it up
+          ssLocations.remove(Coord.toPoint(nextTilePacked));
 
           ++num_stones_held;
         }
         else if (nextTile == TOOL_AXE) {
           haveAxe = true;
+          homeDistances.setInventory(haveKey, haveAxe); //trees are passable from now on
         }
         else if (nextTile == TOOL_KEY) {
           haveKey = true;
+          homeDistances.setInventory(haveKey, haveAxe); //doors are passable from now on
         }
         else if (nextTile == TOOL_GOLD) {
           haveGold = true;
@@ -329,6 +376,90 @@ public class State {
     }
   }
 
+  /**
+   * Registers a listener that is told about every later change of a tile of the map.
+   *
+   * @param listener the listener to add
+   */
+  public void addTileChangeListener(TileChangeListener listener) {
+    tileListeners.add(listener);
+  }
+
+  /**
+   * Sets a tile in the map and updates the connected components of the map and the other tile listeners.
+   * All changes to the map should be made through this method so reachability tests remain correct.
+   *
+   * @param tile the point to set
+   * @param value the new tile
+   */
+  public void setTile(Point2D.Double tile, char value) {
+    setTile(Coord.pack(tile), value);
+  }
+
+  /**
+   * Packed coordinate version of setTile(Point2D.Double tile, char value).
+   *
+   * @param tile packed coordinate of the tile to set
+   * @param value the new tile
+   */
+  private void setTile(int tile, char value) {
+    if (tile == Coord.NONE)
+      return;
+
+    char oldValue = map.get(tile);
+    if (oldValue == value)
+      return;
+
+    map.set(tile, value);
+    for (int i = 0; i < tileListeners.size(); ++i)
+      tileListeners.get(i).onTileChanged(tile, oldValue, value);
+  }
+
+  /**
+   * Determines if goal is reachable from start on the current map with the given inventory.
+   * Gives the same result as a FloodFill on the current map but only compares component labels.
+   *
+   * @param start the starting point
+   * @param goal the goal point
+   * @param hasKey if the player has the key (doors are passable)
+   * @param hasAxe if the player has the axe (trees are passable)
+   * @return true if goal is reachable from start, false otherwise
+   * @see ComponentIndex
+   */
+  public boolean isReachable(Point2D.Double start, Point2D.Double goal, boolean hasKey, boolean hasAxe) {
+    return components.isReachable(Coord.pack(start), Coord.pack(goal), hasKey, hasAxe);
+  }
+
+  /**
+   * @return number of tiles visited by reachability tests (including component rebuilds) so far this game
+   * @see ComponentIndex#getNodesVisited()
+   */
+  public long getReachabilityNodesVisited() {
+    return components.getNodesVisited();
+  }
+
+  /**
+   * Returns a shortest path from the player to the origin (0,0) with the current inventory. The distances to the
+   * origin are kept up to date as the map changes, so no search is needed, the path is read off the distances in
+   * time proportional to its length.
+   *
+   * @return LinkedList of Point2D.Double objects that form a path from the origin to the player (excluding the
+   *         player location), in the same order as AStar.getPath(). Otherwise, empty LinkedList meaning the origin
+   *         can not be reached.
+   * @see DistanceField
+   */
+  public LinkedList<Point2D.Double> getPathHome() {
+    return homeDistances.getPathFrom(getPlayerLocation(), direction);
+  }
+
+  /**
+   * @return number of tiles whose distance to the origin was set or looked up so far this game
+   * @see DistanceField#getNodesVisited()
+   */
+  public long getHomeDistanceNodesVisited() {
+    return homeDistances.getNodesVisited();
+  }
+
   /**
    * For debugging purposes.
    * Typically called from: State#updateFromView()
@@ -348,7 +479,7 @@ public class State {
     //Traverse map showing grid from top left to bottom right
     for (int y = 12; y >= -12; --y) {
       for (int x = -12; x <= 12; ++x) {
-        char curTile = map.get(new Point2D.Double(x, y));
+        char curTile = map.get(x, y);
         System.out.print(curTile);
       }
 
@@ -357,17 +488,17 @@ public class State {
   }
 
   /**
-   * Helper method which rotates a character grid clockwise.
+   * Helper method which rotates a grid clockwise.
    * Adapted from source linked below.
    *
    * @param mat matrix that is to be rotated in a clockwise direction
    * @return matrix rotated in a clockwise direction
    * @see <a href="https://stackoverflow.com/a/2800033/1800854">Matrix CW rotation code (by polygenelubricants)</a>
    */
-  private static char[][] rotateCW(char[][] mat) {
+  private static int[][] rotateCW(int[][] mat) {
     final int M = mat.length;
     final int N = mat[0].length;
-    char[][] ret = new char[N][M];
+    int[][] ret = new int[N][M];
     for (int r = 0; r < M; r++) {
       for (int c = 0; c < N; c++) {
         ret[c][M - 1 - r] = mat[r][c];
@@ -444,6 +575,21 @@ public class State {
     return new Point2D.Double(nextX, nextY);
   }
 
+  /**
+   *  Packed coordinate version of getTileInFront(Point2D.Double tile, int curDirection).
+   *
+   * @param tile  packed coordinate of the tile we wish to look in front of
+   * @param curDirection  the direction we are facing (UP, RIGHT, DOWN, LEFT)
+   * @return  packed coordinate of the tile in front of tile or Coord.NONE if it lies outside the grid
+   * @see Coord
+   */
+  public static int getTileInFront(int tile, int curDirection) {
+    if (tile == Coord.NONE)
+      return Coord.NONE;
+
+    return Coord.step(tile, curDirection);
+  }
+
 
   /**
    * @return true if player currently possesses the gold
@@ -492,9 +638,9 @@ public class State {
   }
 
   /**
-   * @return the environment map (internal state map)
+   * @return the environment map (internal state map), use setTile to make changes to it
    */
-  public Map<Point2D.Double, Character> getMap() {
+  public TileGrid getMap() {
     return map;
   }
 
@@ -0,0 +1,18 @@
+/**
+ * TileChangeListener interface.
+ *
+ * Notified by State whenever a tile of the internal map changes, so structures derived from the map (components,
+ * search trees) can be repaired for that tile instead of being rebuilt.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see State#addTileChangeListener(TileChangeListener)
+ */
+public interface TileChangeListener {
+  /**
+   * @param p packed coordinate of the tile that changed
+   * @param oldTile the previous value of the tile
+   * @param newTile the new value of the tile
+   */
+  void onTileChanged(int p, char oldTile, char newTile);
+}
@@ -0,0 +1,131 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * TileGrid class.
+ *
+ * Dense storage for the internal map. Every tile between (-MAX_GRID_X, -MAX_GRID_Y) and (MAX_GRID_X, MAX_GRID_Y)
+ * is kept in a single char array so lookups are simple index calculations rather than hashed point keys.
+ * Tiles outside of these bounds are reported as State.OBSTACLE_BOUNDARY and can not be written to.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class TileGrid implements TileSource {
+  //Grid dimensions, our origin (0,0) is in the center of the grid
+  final static int WIDTH = State.MAX_GRID_X * 2 + 1;
+  final static int HEIGHT = State.MAX_GRID_Y * 2 + 1;
+  final static int SIZE = WIDTH * HEIGHT;
+
+  private final char[] tiles;
+
+  /**
+   * Constructor.
+   *
+   * @param fill the tile every point in the grid is initially set to
+   */
+  public TileGrid(char fill) {
+    this.tiles = new char[SIZE];
+    Arrays.fill(this.tiles, fill);
+  }
+
+  /**
+   * Overwrites every tile of this grid with the tiles of other.
+   *
+   * @param other the grid to copy
+   */
+  public void copyFrom(TileGrid other) {
+    System.arraycopy(other.tiles, 0, tiles, 0, SIZE);
+  }
+
+  /**
+   * @param x x coordinate of the tile
+   * @param y y coordinate of the tile
+   * @return true if (x,y) lies within the grid
+   */
+  public static boolean inBounds(int x, int y) {
+    return (x >= -State.MAX_GRID_X) && (x <= State.MAX_GRID_X) &&
+           (y >= -State.MAX_GRID_Y) && (y <= State.MAX_GRID_Y);
+  }
+
+  /**
+   * Converts a coordinate into an index of the underlying array.
+   * Precondition: inBounds(x, y) is true
+   *
+   * @param x x coordinate of the tile
+   * @param y y coordinate of the tile
+   * @return index of the tile in the underlying array
+   */
+  public static int index(int x, int y) {
+    return (x + State.MAX_GRID_X) * HEIGHT + (y + State.MAX_GRID_Y);
+  }
+
+  /**
+   * @param x x coordinate of the tile
+   * @param y y coordinate of the tile
+   * @return the tile at (x,y) or State.OBSTACLE_BOUNDARY if (x,y) is outside the grid
+   */
+  public char get(int x, int y) {
+    if (!inBounds(x, y))
+      return State.OBSTACLE_BOUNDARY;
+
+    return tiles[index(x, y)];
+  }
+
+  /**
+   * @param p packed coordinate of the tile
+   * @return the tile at p or State.OBSTACLE_BOUNDARY if p is Coord.NONE
+   * @see Coord
+   */
+  @Override
+  public char get(int p) {
+    if (p == Coord.NONE)
+      return State.OBSTACLE_BOUNDARY;
+
+    return tiles[p];
+  }
+
+  /**
+   * Delegates to get(int x, int y).
+   *
+   * @param tile the point we wish to look up
+   * @return the tile at point or State.OBSTACLE_BOUNDARY if point is outside the grid
+   */
+  public char get(Point2D.Double tile) {
+    return get((int) tile.getX(), (int) tile.getY());
+  }
+
+  /**
+   * Sets the tile at (x,y). Writes outside of the grid are ignored.
+   *
+   * @param x x coordinate of the tile
+   * @param y y coordinate of the tile
+   * @param tile the new tile
+   */
+  public void set(int x, int y, char tile) {
+    if (inBounds(x, y))
+      tiles[index(x, y)] = tile;
+  }
+
+  /**
+   * Sets the tile at p. Writes to Coord.NONE are ignored.
+   *
+   * @param p packed coordinate of the tile
+   * @param tile the new tile
+   * @see Coord
+   */
+  public void set(int p, char tile) {
+    if (p != Coord.NONE)
+      tiles[p] = tile;
+  }
+
+  /**
+   * Delegates to set(int x, int y, char tile).
+   *
+   * @param point the point we wish to set
+   * @param tile the new tile
+   */
+  public void set(Point2D.Double point, char tile) {
+    set((int) point.getX(), (int) point.getY(), tile);
+  }
+}
@@ -0,0 +1,143 @@
+import java.util.*;
+import java.awt.geom.Point2D;
+
+/**
+ * TileOverlay class.
+ *
+ * A copy-on-write view over another TileSource. Tiles set on the overlay are kept in a small hash table of
+ * overrides (the delta) and every other tile is read from the base, which is never modified. This allows
+ * hypothetical changes (such as placing stepping stones) to be planned without touching the internal map.
+ * Memory used is proportional to the largest number of tiles overridden at once, the cost of clear() to the
+ * number of tiles overridden since the last clear.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see <a href="https://en.wikipedia.org/wiki/Linear_probing">Wikipedia - Linear probing</a>
+ */
+public class TileOverlay implements TileSource {
+  private static final int INITIAL_CAPACITY = 16; //must be a power of 2
+
+  private final TileSource base;
+
+  //Open addressing hash table of overridden tiles, empty slots hold Coord.NONE
+  private int[] keys;
+  private char[] values;
+  private int[] usedSlots; //slots of keys holding a tile, in insertion order, so clear() only empties those
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param base the tiles being overlaid
+   */
+  public TileOverlay(TileSource base) {
+    this.base = base;
+    this.keys = new int[INITIAL_CAPACITY];
+    this.values = new char[INITIAL_CAPACITY];
+    this.usedSlots = new int[INITIAL_CAPACITY];
+    Arrays.fill(this.keys, Coord.NONE);
+    this.size = 0;
+  }
+
+  @Override
+  public char get(int p) {
+    if (size == 0 || p == Coord.NONE)
+      return base.get(p);
+
+    int slot = findSlot(keys, p);
+    return (keys[slot] == p) ? values[slot] : base.get(p);
+  }
+
+  /**
+   * Overrides the tile at p. Writes to Coord.NONE are ignored.
+   *
+   * @param p packed coordinate of the tile
+   * @param tile the hypothetical tile
+   */
+  public void set(int p, char tile) {
+    if (p == Coord.NONE)
+      return;
+
+    //Keep the table at most half full
+    if ((size + 1) * 2 > keys.length)
+      grow();
+
+    int slot = findSlot(keys, p);
+    if (keys[slot] != p) {
+      keys[slot] = p;
+      usedSlots[size++] = slot;
+    }
+
+    values[slot] = tile;
+  }
+
+  /**
+   * Delegates to set(int p, char tile).
+   *
+   * @param point the point to override
+   * @param tile the hypothetical tile
+   */
+  public void set(Point2D.Double point, char tile) {
+    set(Coord.pack(point), tile);
+  }
+
+  /**
+   * Removes every override so the overlay is equal to its base again.
+   */
+  public void clear() {
+    if (size == 0)
+      return;
+
+    for (int i = 0; i < size; ++i)
+      keys[usedSlots[i]] = Coord.NONE;
+    size = 0;
+  }
+
+  /**
+   * @return the number of overridden tiles
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the slot holding p or the empty slot where p should be inserted.
+   *
+   * @param table keys of a hash table with a power of 2 length that is never full
+   * @param p packed coordinate
+   * @return index of the slot
+   */
+  private static int findSlot(int[] table, int p) {
+    int mask = table.length - 1;
+    int slot = (p * 0x9E3779B9 >>> 16) & mask;
+
+    while (table[slot] != Coord.NONE && table[slot] != p)
+      slot = (slot + 1) & mask;
+
+    return slot;
+  }
+
+  /**
+   * Doubles the capacity of the hash table.
+   */
+  private void grow() {
+    int[] oldKeys = keys;
+    char[] oldValues = values;
+
+    int[] oldUsedSlots = usedSlots;
+
+    keys = new int[oldKeys.length * 2];
+    values = new char[oldKeys.length * 2];
+    usedSlots = new int[oldKeys.length * 2];
+    Arrays.fill(keys, Coord.NONE);
+
+    //Reinsert in insertion order so usedSlots keeps its order
+    for (int i = 0; i < size; ++i) {
+      int oldSlot = oldUsedSlots[i];
+      int slot = findSlot(keys, oldKeys[oldSlot]);
+      keys[slot] = oldKeys[oldSlot];
+      values[slot] = oldValues[oldSlot];
+      usedSlots[i] = slot;
+    }
+  }
+}
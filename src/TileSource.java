@@ -0,0 +1,17 @@
+/**
+ * TileSource interface.
+ *
+ * Read only access to tiles by packed coordinate. Implemented by TileGrid (the internal map) and TileOverlay
+ * (hypothetical changes on top of another source) so search classes can be run on either.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see Coord
+ */
+public interface TileSource {
+  /**
+   * @param p packed coordinate of the tile
+   * @return the tile at p or State.OBSTACLE_BOUNDARY if p is Coord.NONE
+   */
+  char get(int p);
+}
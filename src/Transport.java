@@ -0,0 +1,70 @@
+import java.io.*;
+
+/**
+ * Transport interface.
+ *
+ * Carries views from the game engine to the agent and actions from the agent back to the game engine.
+ * Each view frame holds the 24 tiles surrounding the player in row order (the center tile is never sent).
+ *
+ * Game engines that support batching (GameServer) also accept a batch of actions in place of a single action:
+ * BATCH_MARKER, the number of actions (1 to MAX_BATCH) and the actions, one byte each. All but the first action
+ * are speculative, the engine applies them in order until one has no effect, the game ends or the move limit is
+ * reached, and answers with a single frame: the number of actions applied followed by the view after each of
+ * them. Agents that never send the marker see the plain protocol.
+ *
+ * Such engines also accept ENCODING_MARKER followed by a ViewCodec mode in place of the first action. The engine
+ * answers with the mode it accepted (one byte) and sends every later view in that encoding, the agent then sends
+ * its first action as usual.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public interface Transport extends Closeable {
+  //Number of tiles sent per view, the 5x5 view without the players tile
+  int VIEW_FRAME_SIZE = 24;
+
+  //First byte of a batch of actions, never a valid action (or any other byte an agent sends as an action)
+  byte BATCH_MARKER = (byte) 0xFF;
+
+  //Most actions in one batch, the count is sent as a single byte
+  int MAX_BATCH = 255;
+
+  //Requests a view encoding, followed by the ViewCodec mode, never a valid action
+  byte ENCODING_MARKER = (byte) 0xFE;
+
+  /**
+   * Reads the next view into view, leaving view[2][2] unchanged.
+   *
+   * @param view 5x5 grid to fill
+   * @return true if a view was read, false if the game engine closed the connection
+   * @throws IOException if the view could not be read
+   */
+  boolean readView(char view[][]) throws IOException;
+
+  /**
+   * Sends an action to the game engine.
+   *
+   * @param action the action to send (L,R,F,C,U)
+   * @throws IOException if the action could not be sent
+   */
+  void writeAction(char action) throws IOException;
+
+  /**
+   * Sends a batch of actions to a game engine that supports batching, see readViews for the answer.
+   *
+   * @param actions the actions to send, actions[0] is the action for the current view
+   * @param count number of actions to send (1 to MAX_BATCH)
+   * @throws IOException if the actions could not be sent
+   */
+  void writeActions(char[] actions, int count) throws IOException;
+
+  /**
+   * Reads the answer to a batch of actions: the view after each action the game engine applied, in order. Like
+   * readView, view[2][2] of each view is left unchanged.
+   *
+   * @param views MAX_BATCH 5x5 grids to fill
+   * @return number of views read (the number of actions applied), or -1 if the game engine closed the connection
+   * @throws IOException if the views could not be read
+   */
+  int readViews(char views[][][]) throws IOException;
+}
@@ -0,0 +1,409 @@
+import java.util.*;
+import java.nio.*;
+
+/**
+ * ViewCodec class.
+ *
+ * Encodes the views sent by the game engine and decodes them on the agent. Three encodings can be negotiated:
+ *
+ * MODE_PLAIN sends the 24 tiles of a view as ASCII bytes, as Stepping does.
+ *
+ * MODE_PACKED sends each tile as a 4 bit code (the view alphabet has fewer than 16 tiles), two tiles per byte with
+ * the first tile in the high bits, so a view takes 12 bytes.
+ *
+ * MODE_DELTA sends each view relative to the previous one. A frame starts with a frame type: SAME (the view did
+ * not change), ROTATE_LEFT or ROTATE_RIGHT (the player turned) are sent without tiles, SHIFT (the player moved
+ * forward) is followed by the 5 tiles of the newly revealed top row and the tile the player left, packed into 3
+ * bytes, and FULL is followed by the whole packed view. The encoder picks the frame type by comparing the view
+ * with the previous one, so it does not need to know which action was made.
+ *
+ * An instance keeps the previous view, so each connection needs its own instance on both ends.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public final class ViewCodec {
+  //Encodings
+  public static final int MODE_PLAIN = 0;
+  public static final int MODE_PACKED = 1;
+  public static final int MODE_DELTA = 2;
+  private static final String[] MODE_NAMES = { "plain", "packed", "delta" };
+
+  //Frame types of MODE_DELTA
+  private static final byte FULL = 0;
+  private static final byte SHIFT = 1;
+  private static final byte ROTATE_LEFT = 2;
+  private static final byte ROTATE_RIGHT = 3;
+  private static final byte SAME = 4;
+
+  //Tiles that can appear in a view, indexed by their code
+  private static final String TILES = " *T-~akoOg.";
+  private static final byte NO_CODE = -1;
+  private static final byte[] CODES = new byte[128];
+
+  static {
+    Arrays.fill(CODES, NO_CODE);
+    for (int code = 0; code < TILES.length(); ++code)
+      CODES[TILES.charAt(code)] = (byte) code;
+  }
+
+  private static final int PACKED_SIZE = Transport.VIEW_FRAME_SIZE / 2;
+  private static final int SHIFT_SIZE = 3;
+
+  //Largest frame of any encoding
+  public static final int MAX_FRAME_SIZE = Transport.VIEW_FRAME_SIZE;
+
+  private final int mode;
+  private final char[][] previous;
+  private final char[][] transformed;
+
+  //Tiles of a SHIFT frame, in the order they are sent
+  private final char[] shiftTiles;
+
+  /**
+   * Constructor. The first view encoded in MODE_DELTA is always sent as a FULL frame.
+   *
+   * @param mode MODE_PLAIN, MODE_PACKED or MODE_DELTA
+   * @throws IllegalArgumentException if mode is not a known encoding
+   */
+  public ViewCodec(int mode) {
+    if (!isMode(mode))
+      throw new IllegalArgumentException("unknown view encoding " + mode);
+
+    this.mode = mode;
+    this.previous = new char[5][5];
+    this.transformed = new char[5][5];
+    this.shiftTiles = new char[6];
+  }
+
+  /**
+   * @return true if mode is a known encoding
+   */
+  public static boolean isMode(int mode) {
+    return mode >= MODE_PLAIN && mode <= MODE_DELTA;
+  }
+
+  /**
+   * @param name name of an encoding (plain, packed or delta)
+   * @return the encoding, or -1 if there is no encoding with that name
+   */
+  public static int modeOf(String name) {
+    for (int mode = 0; mode < MODE_NAMES.length; ++mode) {
+      if (MODE_NAMES[mode].equals(name))
+        return mode;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Checks that every tile the player can see on a map has a 4 bit code, so views of it can be packed.
+   *
+   * @param template the map
+   * @return true if the views of the map can be sent in any encoding
+   */
+  public static boolean canPack(WorldTemplate template) {
+    for (int r = 0; r < template.getRows(); ++r) {
+      for (int c = 0; c < template.getCols(r); ++c) {
+        char tile = template.getTile(r, c);
+        if (Simulator.directionOf(tile) < 0 && codeOf(tile) == NO_CODE)
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static byte codeOf(char tile) {
+    return tile < CODES.length ? CODES[tile] : NO_CODE;
+  }
+
+  public int getMode() {
+    return mode;
+  }
+
+  /**
+   * Encodes a view, leaving out the players tile.
+   *
+   * @param view the view to send
+   * @param frame array to write the frame to
+   * @param offset index of frame to write the first byte to
+   * @return number of bytes written, at most MAX_FRAME_SIZE
+   * @throws IllegalArgumentException if the view holds a tile without a code and can not be packed
+   */
+  public int encode(char view[][], byte[] frame, int offset) {
+    int length;
+
+    switch (mode) {
+      case MODE_PLAIN:
+        for (int i = 0, k = offset; i < 5; ++i) {
+          for (int j = 0; j < 5; ++j) {
+            if (!(i == 2 && j == 2))
+              frame[k++] = (byte) view[i][j];
+          }
+        }
+        length = Transport.VIEW_FRAME_SIZE;
+        break;
+
+      case MODE_PACKED:
+        length = packView(view, frame, offset);
+        break;
+
+      default:
+        length = encodeDelta(view, frame, offset);
+        break;
+    }
+
+    copyView(view, previous);
+    return length;
+  }
+
+  /**
+   * Picks the smallest frame type that reproduces view from the previous view and writes the frame.
+   */
+  private int encodeDelta(char view[][], byte[] frame, int offset) {
+    if (sameView(view, previous)) {
+      frame[offset] = SAME;
+      return 1;
+    }
+
+    rotateLeft(previous, transformed);
+    if (sameView(view, transformed)) {
+      frame[offset] = ROTATE_LEFT;
+      return 1;
+    }
+
+    rotateRight(previous, transformed);
+    if (sameView(view, transformed)) {
+      frame[offset] = ROTATE_RIGHT;
+      return 1;
+    }
+
+    shift(previous, transformed, view[0], view[3][2]);
+    if (sameView(view, transformed)) {
+      frame[offset] = SHIFT;
+      System.arraycopy(view[0], 0, shiftTiles, 0, 5);
+      shiftTiles[5] = view[3][2];
+      packTiles(shiftTiles, frame, offset + 1);
+      return 1 + SHIFT_SIZE;
+    }
+
+    frame[offset] = FULL;
+    return 1 + packView(view, frame, offset + 1);
+  }
+
+  /**
+   * @return number of bytes of the frame starting at the current position of in, in needs to hold at least the
+   *         first byte of the frame
+   */
+  public int frameLength(ByteBuffer in) {
+    switch (mode) {
+      case MODE_PLAIN:
+        return Transport.VIEW_FRAME_SIZE;
+
+      case MODE_PACKED:
+        return PACKED_SIZE;
+
+      default:
+        switch (in.get(in.position())) {
+          case FULL: return 1 + PACKED_SIZE;
+          case SHIFT: return 1 + SHIFT_SIZE;
+          default: return 1;
+        }
+    }
+  }
+
+  /**
+   * Decodes the frame at the current position of in into view, leaving view[2][2] unchanged.
+   *
+   * @param in buffer holding at least frameLength(in) bytes
+   * @param view 5x5 grid to fill
+   * @throws IllegalArgumentException if the frame is malformed
+   */
+  public void decode(ByteBuffer in, char view[][]) {
+    char playerTile = view[2][2];
+
+    switch (mode) {
+      case MODE_PLAIN:
+        for (int i = 0; i < 5; ++i) {
+          for (int j = 0; j < 5; ++j) {
+            if (!(i == 2 && j == 2))
+              view[i][j] = (char) (in.get() & 0xFF);
+          }
+        }
+        break;
+
+      case MODE_PACKED:
+        unpackView(in, view);
+        break;
+
+      default:
+        decodeDelta(in, view);
+        break;
+    }
+
+    view[2][2] = playerTile;
+    copyView(view, previous);
+  }
+
+  private void decodeDelta(ByteBuffer in, char view[][]) {
+    byte type = in.get();
+
+    switch (type) {
+      case FULL:
+        unpackView(in, view);
+        break;
+
+      case SHIFT:
+        unpackTiles(in, shiftTiles);
+        shift(previous, view, shiftTiles, shiftTiles[5]);
+        break;
+
+      case ROTATE_LEFT:
+        rotateLeft(previous, view);
+        break;
+
+      case ROTATE_RIGHT:
+        rotateRight(previous, view);
+        break;
+
+      case SAME:
+        copyView(previous, view);
+        break;
+
+      default:
+        throw new IllegalArgumentException("unknown view frame type " + type);
+    }
+  }
+
+  /**
+   * Packs the 24 tiles of view (without the players tile) into PACKED_SIZE bytes.
+   */
+  private static int packView(char view[][], byte[] frame, int offset) {
+    int k = offset;
+    boolean high = true;
+
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j) {
+        if (i == 2 && j == 2)
+          continue;
+
+        k = putCode(view[i][j], frame, k, high);
+        high = !high;
+      }
+    }
+
+    return PACKED_SIZE;
+  }
+
+  /**
+   * Packs tiles into tiles.length / 2 bytes.
+   */
+  private static void packTiles(char[] tiles, byte[] frame, int offset) {
+    for (int t = 0, k = offset; t < tiles.length; ++t)
+      k = putCode(tiles[t], frame, k, (t & 1) == 0);
+  }
+
+  /**
+   * Writes the code of tile into the high or low bits of frame[k].
+   *
+   * @return index of the byte the next code goes into
+   */
+  private static int putCode(char tile, byte[] frame, int k, boolean high) {
+    byte code = codeOf(tile);
+    if (code == NO_CODE)
+      throw new IllegalArgumentException("tile '" + tile + "' can not be packed");
+
+    if (high) {
+      frame[k] = (byte) (code << 4);
+      return k;
+    }
+
+    frame[k] |= code;
+    return k + 1;
+  }
+
+  private static void unpackView(ByteBuffer in, char view[][]) {
+    int packed = 0;
+    boolean high = true;
+
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j) {
+        if (i == 2 && j == 2)
+          continue;
+
+        if (high)
+          packed = in.get() & 0xFF;
+
+        view[i][j] = tileOf(high ? packed >>> 4 : packed & 0xF);
+        high = !high;
+      }
+    }
+  }
+
+  private static void unpackTiles(ByteBuffer in, char[] tiles) {
+    for (int t = 0; t < tiles.length; t += 2) {
+      int packed = in.get() & 0xFF;
+      tiles[t] = tileOf(packed >>> 4);
+      tiles[t + 1] = tileOf(packed & 0xF);
+    }
+  }
+
+  private static char tileOf(int code) {
+    if (code >= TILES.length())
+      throw new IllegalArgumentException("unknown tile code " + code);
+
+    return TILES.charAt(code);
+  }
+
+  /**
+   * Writes to to the view seen after turning left with view from.
+   */
+  private static void rotateLeft(char from[][], char to[][]) {
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j)
+        to[i][j] = from[4 - j][i];
+    }
+  }
+
+  /**
+   * Writes to to the view seen after turning right with view from.
+   */
+  private static void rotateRight(char from[][], char to[][]) {
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j)
+        to[i][j] = from[j][4 - i];
+    }
+  }
+
+  /**
+   * Writes to to the view seen after moving forward with view from, given the newly revealed top row and the tile
+   * the player left. to may not be from.
+   */
+  private static void shift(char from[][], char to[][], char[] topRow, char leftTile) {
+    System.arraycopy(topRow, 0, to[0], 0, 5);
+    for (int i = 1; i < 5; ++i)
+      System.arraycopy(from[i - 1], 0, to[i], 0, 5);
+
+    to[3][2] = leftTile;
+  }
+
+  /**
+   * @return true if both views hold the same tiles, not counting the players tile
+   */
+  private static boolean sameView(char a[][], char b[][]) {
+    for (int i = 0; i < 5; ++i) {
+      for (int j = 0; j < 5; ++j) {
+        if (a[i][j] != b[i][j] && !(i == 2 && j == 2))
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static void copyView(char from[][], char to[][]) {
+    for (int i = 0; i < 5; ++i)
+      System.arraycopy(from[i], 0, to[i], 0, 5);
+  }
+}
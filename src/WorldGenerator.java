@@ -0,0 +1,633 @@
+import java.util.*;
+import java.io.*;
+
+/**
+ * WorldGenerator class.
+ *
+ * Generates random but reproducible maps in the format read by Stepping, so the agent can be measured on worlds
+ * larger and more varied than the hand written samples. The same type, size and seed always produce the same map.
+ *
+ * Map types:
+ *   maze        - a perfect maze of walls, the gold is in the cell furthest from the player
+ *   open        - an open field with scattered walls, trees and ponds
+ *   archipelago - islands in the sea, every crossing is paid for with stepping stones found on earlier islands
+ *   gated       - strips of land separated by walls, each passed through a door or a tree, with the key and axe
+ *                 placed before the first gate that needs them
+ *   spiral      - nested rings of walls around the player with openings on alternating sides, the worst case for
+ *                 exploring by spiralling outwards as the gold is close by distance but far by path
+ *
+ * Every generated map is checked by a solver before it is written. Maps the solver can not win are discarded
+ * and generated again from the same random sequence, so a written map is always solvable.
+ *
+ * Usage: java WorldGenerator -t type [-w width] [-h height] [-s seed] [-o file]
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ */
+public class WorldGenerator {
+  //Water surrounding every map, as in the samples
+  private static final int BORDER = 2;
+  private static final int MIN_SIZE = 2 * BORDER + 5;
+  private static final int MAX_ATTEMPTS = 1000;
+
+  private static final char[] DIRECTIONS = { '^', '>', 'v', '<' };
+  private static final int[] DR = { -1, 0, 1, 0 };
+  private static final int[] DC = { 0, 1, 0, -1 };
+
+  private final int width, height;
+  private final Random random;
+  private char[][] map;
+
+  /**
+   * Constructor.
+   *
+   * @param width number of columns of the map
+   * @param height number of rows of the map
+   * @param seed seed of the random generator
+   */
+  public WorldGenerator(int width, int height, long seed) {
+    if (width < MIN_SIZE || height < MIN_SIZE || width > State.MAX_GRID_X || height > State.MAX_GRID_Y)
+      throw new IllegalArgumentException("Map size must be between " + MIN_SIZE + "x" + MIN_SIZE + " and " +
+        State.MAX_GRID_X + "x" + State.MAX_GRID_Y);
+
+    this.width = width;
+    this.height = height;
+    this.random = new Random(seed);
+  }
+
+  public static void main(String[] args) {
+    String type = null, output = null;
+    int width = State.MAX_GRID_X, height = State.MAX_GRID_Y;
+    long seed = 0;
+
+    try {
+      for (int k = 0; k < args.length; ++k) {
+        switch (args[k]) {
+          case "-t": type = args[++k]; break;
+          case "-w": width = Integer.parseInt(args[++k]); break;
+          case "-h": height = Integer.parseInt(args[++k]); break;
+          case "-s": seed = Long.parseLong(args[++k]); break;
+          case "-o": output = args[++k]; break;
+          default: type = null; k = args.length;
+        }
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      type = null;
+    }
+
+    if (type == null) {
+      System.out.println("Usage: java WorldGenerator -t maze|open|archipelago|gated|spiral [-w width] " +
+        "[-h height] [-s seed] [-o file]");
+      System.exit(-1);
+    }
+
+    char[][] map = null;
+    try {
+      map = new WorldGenerator(width, height, seed).generate(type);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      System.out.println(e.getMessage());
+      System.exit(-1);
+    }
+
+    try (PrintStream out = output == null ? System.out : new PrintStream(new FileOutputStream(output))) {
+      for (char[] row : map)
+        out.println(new String(row));
+    } catch (IOException e) {
+      System.out.println("Could not write map: " + output);
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Generates a solvable map.
+   *
+   * @param type one of maze, open, archipelago, gated or spiral
+   * @return rows of the map
+   * @throws IllegalArgumentException if type is unknown
+   * @throws IllegalStateException if no solvable map was generated within MAX_ATTEMPTS attempts
+   */
+  public char[][] generate(String type) {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+      map = new char[height][width];
+
+      switch (type) {
+        case "maze": generateMaze(); break;
+        case "open": generateOpen(); break;
+        case "archipelago": generateArchipelago(); break;
+        case "gated": generateGated(); break;
+        case "spiral": generateSpiral(); break;
+        default: throw new IllegalArgumentException("Unknown map type: " + type);
+      }
+
+      if (isSolvable(map))
+        return map;
+    }
+
+    throw new IllegalStateException("Could not generate a solvable " + type + " map");
+  }
+
+  /**
+   * Recursive backtracker maze. Cells lie on odd offsets inside the border, walls between them are removed as
+   * the maze is carved so every cell is connected by exactly one path.
+   */
+  private void generateMaze() {
+    fillInterior('*');
+
+    int cellRows = (height - 2 * BORDER - 1) / 2, cellCols = (width - 2 * BORDER - 1) / 2;
+    boolean[][] visited = new boolean[cellRows][cellCols];
+    int[][] distance = new int[cellRows][cellCols];
+    Deque<int[]> stack = new ArrayDeque<>();
+
+    int startRow = random.nextInt(cellRows), startCol = random.nextInt(cellCols);
+    int goldRow = startRow, goldCol = startCol;
+
+    visited[startRow][startCol] = true;
+    map[cellRow(startRow)][cellCol(startCol)] = ' ';
+    stack.push(new int[] { startRow, startCol });
+
+    while (!stack.isEmpty()) {
+      int[] cell = stack.peek();
+      List<Integer> directions = shuffledDirections();
+      boolean carved = false;
+
+      for (int d : directions) {
+        int r = cell[0] + DR[d], c = cell[1] + DC[d];
+        if (r < 0 || r >= cellRows || c < 0 || c >= cellCols || visited[r][c])
+          continue;
+
+        //Remove the wall between the cells
+        visited[r][c] = true;
+        distance[r][c] = distance[cell[0]][cell[1]] + 1;
+        map[cellRow(cell[0]) + DR[d]][cellCol(cell[1]) + DC[d]] = ' ';
+        map[cellRow(r)][cellCol(c)] = ' ';
+        stack.push(new int[] { r, c });
+
+        if (distance[r][c] > distance[goldRow][goldCol]) {
+          goldRow = r;
+          goldCol = c;
+        }
+
+        carved = true;
+        break;
+      }
+
+      if (!carved)
+        stack.pop();
+    }
+
+    map[cellRow(goldRow)][cellCol(goldCol)] = State.TOOL_GOLD;
+    placePlayer(cellRow(startRow), cellCol(startCol));
+  }
+
+  private static int cellRow(int r) {
+    return BORDER + 1 + 2 * r;
+  }
+
+  private static int cellCol(int c) {
+    return BORDER + 1 + 2 * c;
+  }
+
+  /**
+   * Open field with scattered walls and trees, a few ponds and an axe. The gold is the furthest of a handful of
+   * random tiles from the player.
+   */
+  private void generateOpen() {
+    fillInterior(' ');
+    scatter('*', 8);
+    scatter('T', 4);
+
+    int ponds = (width * height) / 600;
+    for (int i = 0; i < ponds; ++i)
+      carveBlob(randomInteriorRow(), randomInteriorCol(), 1 + random.nextInt(3), '~');
+
+    int[] start = randomTile(' ');
+    placePlayer(start[0], start[1]);
+
+    int[] gold = null;
+    for (int i = 0; i < 5; ++i) {
+      int[] tile = randomTile(' ');
+      if (gold == null || manhattan(start, tile) > manhattan(start, gold))
+        gold = tile;
+    }
+    map[gold[0]][gold[1]] = State.TOOL_GOLD;
+
+    int[] axe = randomTile(' ');
+    map[axe[0]][axe[1]] = State.TOOL_AXE;
+  }
+
+  /**
+   * Islands in the sea. Islands are chained from the player's island to the gold's island, each a short crossing
+   * from the one before, and every island of the chain holds as many stepping stones as water tiles between it
+   * and the next island. A few extra islands hold a single stone each.
+   */
+  private void generateArchipelago() {
+    fill('~');
+
+    int chainLength = Math.max(3, (width * height) / 300);
+    List<int[]> centres = new ArrayList<>();
+
+    int radius = 1 + random.nextInt(3);
+    int[] centre = { randomInteriorRow(), randomInteriorCol() };
+    carveBlob(centre[0], centre[1], radius, ' ');
+    centres.add(centre);
+
+    //Random walk from island to island, leaving 1 to 3 water tiles between neighbouring islands
+    for (int failures = 0; centres.size() < chainLength && failures < 100;) {
+      int nextRadius = 1 + random.nextInt(3);
+      int gap = 1 + random.nextInt(3);
+      int d = random.nextInt(4);
+      int distance = radius + nextRadius + gap + 1;
+      int[] next = { centre[0] + DR[d] * distance, centre[1] + DC[d] * distance };
+
+      //Islands must not touch and the chain must lead away from the player
+      if (!isInterior(next[0], next[1]) || !isOpenSea(next[0], next[1], nextRadius + 1) ||
+          manhattan(next, centres.get(0)) <= manhattan(centre, centres.get(0))) {
+        ++failures;
+        continue;
+      }
+
+      carveBlob(next[0], next[1], nextRadius, ' ');
+      centres.add(next);
+      centre = next;
+      radius = nextRadius;
+    }
+
+    int extraIslands = chainLength / 2;
+    for (int i = 0; i < extraIslands; ++i) {
+      int r = randomInteriorRow(), c = randomInteriorCol();
+      carveBlob(r, c, 1, ' ');
+      map[r][c] = State.TOOL_STEPPING_STONE;
+    }
+
+    for (int i = 0; i + 1 < centres.size(); ++i) {
+      int water = countWaterBetween(centres.get(i), centres.get(i + 1));
+      for (int s = 0; s < water; ++s) {
+        int[] tile = randomTileNear(centres.get(i), ' ');
+        if (tile != null)
+          map[tile[0]][tile[1]] = State.TOOL_STEPPING_STONE;
+      }
+    }
+
+    int[] gold = centres.get(centres.size() - 1);
+    map[gold[0]][gold[1]] = State.TOOL_GOLD;
+    placePlayer(centres.get(0)[0], centres.get(0)[1]);
+  }
+
+  /**
+   * Vertical strips of land separated by walls. Each wall has a single gate that is a door or a tree, the key
+   * and axe lie in a random strip before the first gate needing them and the gold lies in the last strip.
+   */
+  private void generateGated() {
+    fillInterior(' ');
+    scatter('*', 6);
+
+    int top = BORDER, bottom = height - BORDER - 1;
+    int left = BORDER, right = width - BORDER - 1;
+    int strips = Math.max(2, (right - left + 1) / 12);
+    int stripWidth = (right - left + 1) / strips;
+
+    boolean keyPlaced = false, axePlaced = false;
+    for (int s = 1; s < strips; ++s) {
+      int wallCol = left + s * stripWidth;
+      for (int r = top; r <= bottom; ++r)
+        map[r][wallCol] = '*';
+
+      char gate = random.nextBoolean() ? State.OBSTACLE_DOOR : State.OBSTACLE_TREE;
+      int gateRow = top + random.nextInt(bottom - top + 1);
+      map[gateRow][wallCol] = gate;
+
+      //Tiles either side of the gate must be open
+      map[gateRow][wallCol - 1] = ' ';
+      map[gateRow][wallCol + 1] = ' ';
+
+      if (gate == State.OBSTACLE_DOOR && !keyPlaced) {
+        placeInStrip(State.TOOL_KEY, left, left + random.nextInt(s) * stripWidth, stripWidth);
+        keyPlaced = true;
+      } else if (gate == State.OBSTACLE_TREE && !axePlaced) {
+        placeInStrip(State.TOOL_AXE, left, left + random.nextInt(s) * stripWidth, stripWidth);
+        axePlaced = true;
+      }
+    }
+
+    int[] start = randomTileInColumns(left, left + stripWidth - 1, ' ');
+    placePlayer(start[0], start[1]);
+
+    int[] gold = randomTileInColumns(left + (strips - 1) * stripWidth + 1, right, ' ');
+    map[gold[0]][gold[1]] = State.TOOL_GOLD;
+  }
+
+  /**
+   * Places tool on a free tile of the strip starting at column stripLeft (the wall of the strip is excluded).
+   */
+  private void placeInStrip(char tool, int left, int stripLeft, int stripWidth) {
+    int first = stripLeft == left ? stripLeft : stripLeft + 1;
+    int[] tile = randomTileInColumns(first, stripLeft + stripWidth - 1, ' ');
+    map[tile[0]][tile[1]] = tool;
+  }
+
+  /**
+   * Rings of walls around the player in the middle. Ring k has its opening on the top side for even k and on
+   * the bottom side for odd k, so every corridor between two rings must be walked half way around. The gold lies
+   * in the outermost corridor on the opposite side to the opening that leads into it.
+   */
+  private void generateSpiral() {
+    fillInterior(' ');
+
+    int ring = 0;
+    int top = BORDER, left = BORDER, bottom = height - BORDER - 1, right = width - BORDER - 1;
+
+    while (bottom - top >= 4 && right - left >= 4) {
+      for (int c = left; c <= right; ++c) {
+        map[top][c] = '*';
+        map[bottom][c] = '*';
+      }
+      for (int r = top; r <= bottom; ++r) {
+        map[r][left] = '*';
+        map[r][right] = '*';
+      }
+
+      //The outermost ring is closed so the player can never reach the sea
+      if (ring > 0) {
+        if (ring % 2 == 0)
+          map[top][left + 1 + random.nextInt(right - left - 1)] = ' ';
+        else
+          map[bottom][left + 1 + random.nextInt(right - left - 1)] = ' ';
+      }
+
+      ++ring;
+      top += 2;
+      left += 2;
+      bottom -= 2;
+      right -= 2;
+    }
+
+    //The second ring (if any) opens on the bottom, so the gold goes in the top corridor
+    int goldRow = BORDER + 1;
+    int goldCol = BORDER + 1 + random.nextInt(width - 2 * BORDER - 2);
+    map[goldRow][goldCol] = State.TOOL_GOLD;
+
+    placePlayer((top + bottom) / 2, (left + right) / 2);
+  }
+
+  /**
+   * Determines if the game can be won on map.
+   *
+   * Repeatedly collects every tool reachable from the player (chopping trees and unlocking doors once the axe
+   * and key are held). When no tool is left in reach, stepping stones are placed along the crossing that uses the
+   * fewest stones to reach another tool or the gold. Tiles only ever become passable, so anything reached can be
+   * walked back from and the game is won as soon as the gold is reached.
+   *
+   * This is a greedy solver, a map it returns true for can definitely be won but some winnable maps that need
+   * stones to be saved for a later crossing are rejected.
+   *
+   * @param original rows of the map, not modified
+   * @return true if the game can be won
+   */
+  static boolean isSolvable(char[][] original) {
+    int rows = original.length, cols = 0;
+    for (char[] row : original)
+      cols = Math.max(cols, row.length);
+
+    char[][] tiles = new char[rows][cols];
+    String directions = new String(DIRECTIONS);
+    int start = -1;
+    for (int r = 0; r < rows; ++r) {
+      Arrays.fill(tiles[r], '.');
+      for (int c = 0; c < original[r].length; ++c) {
+        tiles[r][c] = original[r][c];
+        if (directions.indexOf(original[r][c]) >= 0) {
+          tiles[r][c] = ' ';
+          start = r * cols + c;
+        }
+      }
+    }
+
+    if (start < 0)
+      return false;
+
+    boolean hasKey = false, hasAxe = false;
+    int stones = 0;
+    int[] cost = new int[rows * cols];
+    int[] parent = new int[rows * cols];
+    Deque<Integer> deque = new ArrayDeque<>();
+
+    while (true) {
+      //0-1 breadth first search, passable tiles cost nothing and water costs a stone
+      Arrays.fill(cost, Integer.MAX_VALUE);
+      cost[start] = 0;
+      parent[start] = -1;
+      deque.clear();
+      deque.add(start);
+
+      boolean collected = false;
+      int target = -1;
+
+      while (!deque.isEmpty()) {
+        int p = deque.poll();
+        char tile = tiles[p / cols][p % cols];
+
+        if (cost[p] == 0 && tile == State.TOOL_GOLD)
+          return true;
+
+        //Pick up every tool in reach, remember the cheapest tool that needs stones
+        if (tile == State.TOOL_GOLD || tile == State.TOOL_KEY || tile == State.TOOL_AXE ||
+            tile == State.TOOL_STEPPING_STONE) {
+          if (cost[p] == 0) {
+            if (tile == State.TOOL_KEY)
+              hasKey = true;
+            else if (tile == State.TOOL_AXE)
+              hasAxe = true;
+            else
+              ++stones;
+
+            tiles[p / cols][p % cols] = ' ';
+            collected = true;
+          }
+          else if (target < 0 || cost[p] < cost[target] ||
+                   (cost[p] == cost[target] && tile == State.TOOL_GOLD)) {
+            target = p;
+          }
+        }
+
+        for (int d = 0; d < 4; ++d) {
+          int r = p / cols + DR[d], c = p % cols + DC[d];
+          if (r < 0 || r >= rows || c < 0 || c >= cols)
+            continue;
+
+          int neighbour = r * cols + c;
+          char next = tiles[r][c];
+          int step;
+
+          if (next == State.OBSTACLE_WATER)
+            step = 1;
+          else if (State.isTilePassable(next, hasKey, hasAxe))
+            step = 0;
+          else
+            continue;
+
+          if (cost[p] + step >= cost[neighbour] || cost[p] + step > stones)
+            continue;
+
+          cost[neighbour] = cost[p] + step;
+          parent[neighbour] = p;
+          if (step == 0)
+            deque.addFirst(neighbour);
+          else
+            deque.addLast(neighbour);
+        }
+      }
+
+      //Picking up a tool may have opened new tiles
+      if (collected)
+        continue;
+
+      if (target < 0)
+        return false;
+
+      //Place stones along the cheapest crossing
+      for (int p = target; p != -1; p = parent[p]) {
+        if (tiles[p / cols][p % cols] == State.OBSTACLE_WATER) {
+          tiles[p / cols][p % cols] = State.OBSTACLE_STEPPING_STONE_PLACED;
+          --stones;
+        }
+      }
+    }
+  }
+
+  private void fill(char tile) {
+    for (char[] row : map)
+      Arrays.fill(row, tile);
+  }
+
+  /**
+   * Fills the map with water and everything inside the border with tile.
+   */
+  private void fillInterior(char tile) {
+    fill('~');
+    for (int r = BORDER; r < height - BORDER; ++r) {
+      for (int c = BORDER; c < width - BORDER; ++c)
+        map[r][c] = tile;
+    }
+  }
+
+  /**
+   * Turns percent of the spaces inside the border into tile.
+   */
+  private void scatter(char tile, int percent) {
+    for (int r = BORDER; r < height - BORDER; ++r) {
+      for (int c = BORDER; c < width - BORDER; ++c) {
+        if (map[r][c] == ' ' && random.nextInt(100) < percent)
+          map[r][c] = tile;
+      }
+    }
+  }
+
+  /**
+   * Sets every tile inside the border within radius (manhattan distance) of (row, col) to tile.
+   */
+  private void carveBlob(int row, int col, int radius, char tile) {
+    for (int r = row - radius; r <= row + radius; ++r) {
+      for (int c = col - radius; c <= col + radius; ++c) {
+        if (isInterior(r, c) && Math.abs(r - row) + Math.abs(c - col) <= radius)
+          map[r][c] = tile;
+      }
+    }
+  }
+
+  /**
+   * @return true if every tile within radius (manhattan distance) of (row, col) is water
+   */
+  private boolean isOpenSea(int row, int col, int radius) {
+    for (int r = row - radius; r <= row + radius; ++r) {
+      for (int c = col - radius; c <= col + radius; ++c) {
+        if (Math.abs(r - row) + Math.abs(c - col) <= radius && r >= 0 && r < height && c >= 0 && c < width &&
+            map[r][c] != '~')
+          return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Counts the water tiles on the path from a to b that goes along the row of a and then along the column of b.
+   */
+  private int countWaterBetween(int[] a, int[] b) {
+    int water = 0;
+    int stepC = Integer.signum(b[1] - a[1]), stepR = Integer.signum(b[0] - a[0]);
+
+    for (int c = a[1]; c != b[1]; c += stepC) {
+      if (map[a[0]][c] == '~')
+        ++water;
+    }
+    for (int r = a[0]; r != b[0]; r += stepR) {
+      if (map[r][b[1]] == '~')
+        ++water;
+    }
+
+    return water;
+  }
+
+  private void placePlayer(int row, int col) {
+    map[row][col] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+  }
+
+  private boolean isInterior(int r, int c) {
+    return r >= BORDER && r < height - BORDER && c >= BORDER && c < width - BORDER;
+  }
+
+  private int randomInteriorRow() {
+    return BORDER + random.nextInt(height - 2 * BORDER);
+  }
+
+  private int randomInteriorCol() {
+    return BORDER + random.nextInt(width - 2 * BORDER);
+  }
+
+  /**
+   * @return a random interior tile holding tile, or an arbitrary interior tile if none was found by sampling
+   */
+  private int[] randomTile(char tile) {
+    return randomTileInColumns(BORDER, width - BORDER - 1, tile);
+  }
+
+  /**
+   * @return a random tile holding tile with a column between first and last inclusive, or an arbitrary tile in
+   *         those columns (which is cleared to a space) if none was found by sampling
+   */
+  private int[] randomTileInColumns(int first, int last, char tile) {
+    int r = 0, c = 0;
+    for (int i = 0; i < 1000; ++i) {
+      r = randomInteriorRow();
+      c = first + random.nextInt(last - first + 1);
+      if (map[r][c] == tile)
+        return new int[] { r, c };
+    }
+
+    map[r][c] = tile;
+    return new int[] { r, c };
+  }
+
+  /**
+   * @return a random tile holding tile within 3 tiles of centre, or null if none was found by sampling
+   */
+  private int[] randomTileNear(int[] centre, char tile) {
+    for (int i = 0; i < 100; ++i) {
+      int r = centre[0] - 3 + random.nextInt(7), c = centre[1] - 3 + random.nextInt(7);
+      if (isInterior(r, c) && map[r][c] == tile && (r != centre[0] || c != centre[1]))
+        return new int[] { r, c };
+    }
+
+    return null;
+  }
+
+  private List<Integer> shuffledDirections() {
+    List<Integer> directions = new ArrayList<>(Arrays.asList(0, 1, 2, 3));
+    Collections.shuffle(directions, random);
+    return directions;
+  }
+
+  private static int manhattan(int[] a, int[] b) {
+    return Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+  }
+}
@@ -0,0 +1,106 @@
+import java.util.*;
+import java.io.*;
+
+/**
+ * WorldTemplate class.
+ *
+ * An immutable copy of a map as read by Stepping (rows of tiles with the player shown as ^, >, v or <). A template
+ * is parsed once and can then start any number of games through Simulator, which copies the tiles on reset
+ * instead of reading the map again.
+ *
+ * @author Mohammad Ghasembeigi
+ * @version 1.0
+ * @see Simulator
+ */
+public final class WorldTemplate {
+  private final char[][] rows;
+  private final int startRow, startCol, startDirection;
+
+  /**
+   * Constructor.
+   *
+   * @param rows rows of the map, copied so later changes to them do not affect the template
+   * @throws IllegalArgumentException if the map does not contain the player
+   */
+  public WorldTemplate(List<String> rows) {
+    this.rows = new char[rows.size()][];
+
+    int playerRow = -1, playerCol = -1, playerDirection = -1;
+    for (int r = 0; r < rows.size(); ++r) {
+      this.rows[r] = rows.get(r).toCharArray();
+
+      for (int c = 0; c < this.rows[r].length; ++c) {
+        int direction = Simulator.directionOf(this.rows[r][c]);
+        if (direction >= 0) {
+          playerRow = r;
+          playerCol = c;
+          playerDirection = direction;
+        }
+      }
+    }
+
+    if (playerRow < 0)
+      throw new IllegalArgumentException("map does not contain the player");
+
+    this.startRow = playerRow;
+    this.startCol = playerCol;
+    this.startDirection = playerDirection;
+  }
+
+  /**
+   * Reads a map file. Like Stepping, reading stops at the first empty line.
+   *
+   * @param mapName path of the map file
+   * @return the template of the map
+   * @throws IOException if the file can not be read
+   * @throws IllegalArgumentException if the map does not contain the player
+   */
+  public static WorldTemplate load(String mapName) throws IOException {
+    List<String> rows = new ArrayList<>();
+
+    try (BufferedReader in = new BufferedReader(new FileReader(mapName))) {
+      String line;
+      while ((line = in.readLine()) != null && line.length() > 0)
+        rows.add(line);
+    }
+
+    return new WorldTemplate(rows);
+  }
+
+  /**
+   * @return number of rows of the map
+   */
+  public int getRows() {
+    return rows.length;
+  }
+
+  /**
+   * @param row a row of the map
+   * @return number of tiles in row (rows may differ in length)
+   */
+  public int getCols(int row) {
+    return rows[row].length;
+  }
+
+  /**
+   * @return the tile at (row, col) before the game starts
+   */
+  public char getTile(int row, int col) {
+    return rows[row][col];
+  }
+
+  public int getStartRow() {
+    return startRow;
+  }
+
+  public int getStartCol() {
+    return startCol;
+  }
+
+  /**
+   * @return direction the player starts facing (Simulator.EAST, NORTH, WEST or SOUTH)
+   */
+  public int getStartDirection() {
+    return startDirection;
+  }
+}